@@ -0,0 +1,234 @@
+package file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 
+ * BinaryConfigStore keeps each config file as a ConfigSnapshot on disk (config.bin in place of
+ * config.txt) instead of as text: loading a file is one read with nothing to parse, and each
+ * property is decoded only when it is asked for. Writes rewrite the whole snapshot, atomically, as
+ * ConfigFileWriter does for text files.
+ * 
+ * The snapshot has no room for the comments a text config file carries (such as its description),
+ * and isn't meant to be edited by hand; a file changed on disk by another program is still picked
+ * up, by its modified time and size as with the ConfigCache.
+ * 
+ */
+
+public class BinaryConfigStore implements ConfigStore{
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	public static final String BINARY_SUFFIX = ".bin";
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	/** Loaded snapshots by their ConfigFileHandle's path*/
+	private HashMap<Path, Loaded> loaded;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	public BinaryConfigStore() {
+		loaded = new HashMap<Path, Loaded>();
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	@Override
+	public String get(ConfigFileHandle file, String property) {
+		ConfigSnapshot snap = validate(file);
+		return snap == null ? null : snap.get(property);
+	}
+	
+	@Override
+	public HashMap<String, String> get(ConfigFileHandle file, Iterable<String> properties) {
+		HashMap<String, String> out = new HashMap<String, String>();
+		ConfigSnapshot snap = validate(file);
+		if(snap == null) {
+			return out;
+		}
+		for(String property : properties) {
+			String value = snap.get(property);
+			if(value != null) {
+				out.put(property, value);
+			}
+		}
+		return out;
+	}
+	
+	@Override
+	public Map<String, String> getAll(ConfigFileHandle file) {
+		ConfigSnapshot snap = validate(file);
+		return snap == null ? null : Collections.unmodifiableMap(snap.toMap());
+	}
+	
+	@Override
+	public boolean refresh(ConfigFileHandle file) {
+		return validate(file) != null;
+	}
+	
+	@Override
+	public void invalidate(ConfigFileHandle file) {
+		entry(file).stale = true;
+	}
+	
+	@Override
+	public boolean exists(ConfigFileHandle file) {
+		return getFile(file).exists();
+	}
+	
+	@Override
+	public boolean write(ConfigFileHandle file, Map<String, String> updates) {
+		try {
+			prepare(file, updates).install();
+			return true;
+		}
+		catch(IOException e) {
+			System.err.println("Failure to write " + updates.size() + " entries to config file: " + getFile(file).getAbsolutePath());
+			return false;
+		}
+	}
+	
+	@Override
+	public Prepared prepare(ConfigFileHandle file, Map<String, String> updates) throws IOException{
+		final File f = getFile(file);
+		LinkedHashMap<String, String> contents = ConfigSnapshot.read(f).toMap();
+		for(Map.Entry<String, String> e : updates.entrySet()) {
+			if(contents.containsKey(e.getKey())) {
+				contents.put(e.getKey(), e.getValue());
+			}
+		}
+		final Path temp = ConfigFileWriter.writeTemp(f, ConfigSnapshot.encode(contents));
+		return new Prepared() {
+			@Override
+			public void install() throws IOException{
+				ConfigFileWriter.install(temp, f);
+			}
+			
+			@Override
+			public void discard() {
+				try {
+					Files.deleteIfExists(temp);
+				}
+				catch(IOException e) {
+					return;
+				}
+			}
+		};
+	}
+	
+	/**
+	 * As for the text config file, except that the description is not kept.
+	 * 
+	 */
+	
+	@Override
+	public HashMap<String, String> ensure(ConfigFileHandle file, String description, Map<String, String> defaults, Map<String, String> updates, boolean replaceNull) throws IOException{
+		File f = getFile(file);
+		boolean exists = f.exists();
+		LinkedHashMap<String, String> contents = exists ? ConfigSnapshot.read(f).toMap() : new LinkedHashMap<String, String>();
+		HashMap<String, String> written = new HashMap<String, String>();
+		for(Map.Entry<String, String> e : updates.entrySet()) {
+			if(contents.containsKey(e.getKey())) {
+				contents.put(e.getKey(), e.getValue());
+				written.put(e.getKey(), e.getValue());
+			}
+		}
+		for(Map.Entry<String, String> e : defaults.entrySet()) {
+			String name = e.getKey();
+			String value = updates.containsKey(name) ? updates.get(name) : e.getValue();
+			if(!contents.containsKey(name) || (replaceNull && !updates.containsKey(name) && ConfigFileWriter.NULL_VALUE.equals(contents.get(name)))) {
+				contents.put(name, value);
+				written.put(name, value);
+			}
+		}
+		if(!written.isEmpty() || !exists) {
+			Files.createDirectories(file.getPath().getParent());
+			ConfigFileWriter.install(ConfigFileWriter.writeTemp(f, ConfigSnapshot.encode(contents)), f);
+		}
+		return written;
+	}
+	
+	/**
+	 * Returns the file's snapshot, re-reading it (under the file's read lock) first if it was
+	 * invalidated or its modified time or size has changed; null if it has never been readable.
+	 * 
+	 * @param file
+	 * @return
+	 */
+	
+	private ConfigSnapshot validate(ConfigFileHandle file) {
+		Loaded at = entry(file);
+		File f = getFile(file);
+		synchronized(at) {
+			long modified = f.lastModified();
+			long size = f.length();
+			if(at.snapshot != null && !at.stale && modified == at.modified && size == at.size) {
+				return at.snapshot;
+			}
+			at.stale = false;
+			file.lockRead();
+			try {
+				at.snapshot = ConfigSnapshot.read(f);
+				at.modified = modified;
+				at.size = size;
+				file.bumpVersion();
+			}
+			catch(IOException e) {
+				return at.snapshot;
+			}
+			finally {
+				file.unlockRead();
+			}
+			return at.snapshot;
+		}
+	}
+	
+	private Loaded entry(ConfigFileHandle file) {
+		synchronized(loaded) {
+			Loaded out = loaded.get(file.getPath());
+			if(out == null) {
+				out = new Loaded();
+				loaded.put(file.getPath(), out);
+			}
+			return out;
+		}
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Returns the snapshot file standing in for the handle's text file: its name with '.txt'
+	 * replaced by BINARY_SUFFIX.
+	 * 
+	 * @param file
+	 * @return
+	 */
+	
+	public File getFile(ConfigFileHandle file) {
+		String name = file.getPath().getFileName().toString();
+		return file.getPath().resolveSibling(name.substring(0, name.length() - ".txt".length()) + BINARY_SUFFIX).toFile();
+	}
+	
+//---  Mechanics   ----------------------------------------------------------------------------
+	
+	private static class Loaded {
+		
+		private ConfigSnapshot snapshot;
+		
+		private long modified;
+		
+		private long size;
+		
+		private volatile boolean stale;
+	
+	}
+	
+}
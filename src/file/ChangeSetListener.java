@@ -0,0 +1,28 @@
+package file;
+
+import java.util.Map;
+
+/**
+ * 
+ * Interface for objects that want to be told about every change to a config file as one set, rather
+ * than subscribing to its properties one at a time with PropertyListeners; subscribe through a
+ * SpecificFileAccessor.
+ * 
+ * Calls may arrive from the config file watcher's thread, not the thread that subscribed.
+ * 
+ */
+
+public interface ChangeSetListener {
+	
+	/**
+	 * Called with every property whose value changed together (one write, one committed transaction,
+	 * or one outside edit of the file), mapped to its new value (null if it is no longer present), and
+	 * the file's version (see SpecificFileAccessor.getFileVersion) once those changes were made.
+	 * 
+	 * @param version
+	 * @param changes
+	 */
+	
+	public abstract void changesApplied(long version, Map<String, String> changes);
+	
+}
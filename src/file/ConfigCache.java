@@ -0,0 +1,454 @@
+package file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 
+ * ConfigCache holds the parsed contents (property name to value) of a single config file so that
+ * repeated reads of that file's properties don't each re-open and re-scan the file on disk.
+ * 
+ * There is one ConfigCache per config file, owned by its ConfigFileHandle and so shared between every
+ * FileAccess that points at that file; the parsed contents are only thrown away and re-read when the
+ * file's last-modified time or size changes (or when this program writes to the file and explicitly
+ * invalidates it).
+ * 
+ * In mapped mode (see setMapped) the contents are kept as a ConfigIndex over the memory-mapped file
+ * instead, and values are only decoded as they are asked for.
+ * 
+ * With snapshots on (see setSnapshots) a ConfigSnapshot of the file is kept beside it: when the
+ * file has to be read and the snapshot was made from the file as it is now, the snapshot is loaded
+ * with one read and nothing parsed, and values are decoded as they are asked for; otherwise the
+ * file is parsed and the snapshot made again in the background, on the file's I/O queue. The text
+ * file stays the one that counts; a snapshot that doesn't match it is never used.
+ * 
+ * Hit/miss counts are kept both per file and in total so it can be confirmed that an idle config
+ * menu isn't touching the disk; a 'hit' is a read answered from memory, a 'miss' is a read that
+ * required the file to be parsed again.
+ * 
+ */
+
+public class ConfigCache {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	private static final AtomicLong totalHits = new AtomicLong();
+	
+	private static final AtomicLong totalMisses = new AtomicLong();
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private ConfigFileHandle handle;
+	
+	private File file;
+	/** Last-modified time of the file when 'entries' was parsed, -1 if never parsed*/
+	private long lastModified;
+	/** Size in bytes of the file when 'entries' was parsed, -1 if never parsed*/
+	private long lastSize;
+	/** Last-modified time of the file's journal when 'entries' was parsed, 0 if it had none*/
+	private long lastJournalModified;
+	/** Size in bytes of the file's journal when 'entries' was parsed, 0 if it had none*/
+	private long lastJournalSize;
+	/** Sequence number of the file's ConfigFileLock when 'entries' was parsed*/
+	private long lastSequence;
+	/** Set by invalidate to force the next read to re-parse*/
+	private volatile boolean stale;
+	
+	private HashMap<String, String> entries;
+	/** Contents of the file when in mapped mode, in place of 'entries'*/
+	private ConfigIndex index;
+	/** Contents of the file when loaded from its snapshot, in place of 'entries'*/
+	private ConfigSnapshot snapshot;
+	
+	private volatile boolean mapped;
+	
+	private volatile boolean snapshots;
+	/** Contents parsed from the file (and its modified time and size) waiting to be written as its snapshot*/
+	private HashMap<String, String> snapshotEntries;
+	
+	private long snapshotModified;
+	
+	private long snapshotSize;
+	
+	private boolean snapshotScheduled;
+	
+	private long snapshotLoads;
+	/** Tickets handed to re-reads of the file, and the ticket of the last one published*/
+	private long reads;
+	
+	private long published;
+	
+	private long hits;
+	
+	private long misses;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	ConfigCache(ConfigFileHandle fileHandle) {
+		handle = fileHandle;
+		file = fileHandle.getFile();
+		lastModified = -1;
+		lastSize = -1;
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	/**
+	 * Returns the value stored for the given property in this cache's file, re-parsing the file
+	 * first only if it has changed on disk since it was last read.
+	 * 
+	 * Returns null if the property is not present or the file could not be read.
+	 * 
+	 * @param property
+	 * @return
+	 */
+	
+	public String getEntry(String property) {
+		if(!validate()) {
+			return null;
+		}
+		synchronized(this) {
+			return lookup(property);
+		}
+	}
+	
+	/**
+	 * Returns the values of every listed property that is present in this cache's file, checking
+	 * the file on disk only once for all of them.
+	 * 
+	 * @param properties
+	 * @return
+	 */
+	
+	public HashMap<String, String> getEntries(Iterable<String> properties){
+		HashMap<String, String> out = new HashMap<String, String>();
+		if(!validate()) {
+			return out;
+		}
+		synchronized(this) {
+			for(String property : properties) {
+				String value = lookup(property);
+				if(value != null) {
+					out.put(property, value);
+				}
+			}
+		}
+		return out;
+	}
+	
+	/**
+	 * Returns every property in this cache's file as an unmodifiable map, re-parsing the file first
+	 * only if it has changed on disk; returns null if the file could not be read.
+	 * 
+	 * In mapped mode, or when loaded from a snapshot, this decodes every value in the file; prefer
+	 * getEntry or getEntries(Iterable).
+	 * 
+	 * @return
+	 */
+	
+	public Map<String, String> getEntries() {
+		if(!validate()) {
+			return null;
+		}
+		synchronized(this) {
+			if(index != null) {
+				return Collections.unmodifiableMap(index.toMap());
+			}
+			return Collections.unmodifiableMap(snapshot != null ? snapshot.toMap() : entries);
+		}
+	}
+	
+	/**
+	 * Re-parses the file if it has changed on disk since it was last read; returns false if the
+	 * file has never been readable.
+	 * 
+	 * @return
+	 */
+	
+	public boolean refresh() {
+		return validate();
+	}
+	
+	/**
+	 * Forces the next read to re-parse the file; called after this program writes to the file
+	 * as a write can land within the same last-modified tick and leave the file size unchanged.
+	 * 
+	 * Doesn't wait on this cache's lock, so it is safe to call while holding the file's write lock.
+	 * 
+	 */
+	
+	public void invalidate() {
+		stale = true;
+	}
+	
+	/**
+	 * Checks the file's modification time and size (and its journal's, if it has or may have one)
+	 * against what was last parsed, re-reading the file (under the file's read lock, so never part
+	 * way through one of this program's own rewrites) if any differ; if the file can't be read, the
+	 * last contents successfully read are kept and used (returns false only if there are none).
+	 * 
+	 * With locking across processes on, a change in the ConfigFileLock's sequence number also means
+	 * re-reading, and the read holds the shared lock so it is never part way through another
+	 * program's write either.
+	 * 
+	 * The check and the publishing of what was read are done holding this cache's monitor, but the
+	 * read itself (and waiting for the file's locks) is not, so a reader blocked on another program's
+	 * write doesn't hold up every other reader of this cache. Each re-read takes a ticket, and what
+	 * it read is only published if no later re-read has published already.
+	 * 
+	 * @return
+	 */
+	
+	private boolean validate() {
+		ConfigFileLock processLock = handle.getProcessLock();
+		ConfigJournal journal = handle.getJournal();
+		long sequence = processLock.getSequence();
+		long modified = file.lastModified();
+		long size = file.length();
+		long journalModified = 0;
+		long journalSize = 0;
+		long ticket;
+		boolean map;
+		boolean useSnapshots;
+		synchronized(this) {
+			boolean parsed = isParsed();
+			if(journal.isEnabled() || lastJournalSize != 0 || !parsed) {
+				journalModified = journal.getFile().lastModified();
+				journalSize = journal.getFile().length();
+			}
+			if(parsed && !stale && sequence == lastSequence && modified == lastModified && size == lastSize && journalModified == lastJournalModified && journalSize == lastJournalSize) {
+				hits++;
+				totalHits.incrementAndGet();
+				return true;
+			}
+			misses++;
+			totalMisses.incrementAndGet();
+			stale = false;
+			if(parsed && sequence != lastSequence) {
+				processLock.noteSequence(sequence);
+			}
+			ticket = ++reads;
+			map = mapped;
+			useSnapshots = snapshots;
+		}
+		ConfigIndex readIndex = null;
+		HashMap<String, String> readEntries = null;
+		ConfigSnapshot readSnapshot = null;
+		boolean whole = false;
+		handle.lockRead();
+		try {
+			if(map) {
+				readIndex = ConfigIndex.map(file);
+				if(journal.exists()) {
+					for(Map.Entry<String, String> e : journal.read().entrySet()) {
+						readIndex.override(e.getKey(), e.getValue());
+					}
+				}
+			}
+			else {
+				whole = useSnapshots && !journal.exists();
+				readSnapshot = whole ? loadSnapshot(modified, size) : null;
+				if(readSnapshot == null) {
+					readEntries = parse(file, journal);
+				}
+			}
+		}
+		catch(IOException e) {
+			synchronized(this) {
+				return isParsed();
+			}
+		}
+		finally {
+			handle.unlockRead();
+		}
+		synchronized(this) {
+			if(ticket > published) {
+				published = ticket;
+				index = readIndex;
+				entries = readEntries;
+				snapshot = readSnapshot;
+				if(readSnapshot != null) {
+					snapshotLoads++;
+				}
+				else if(whole) {
+					scheduleSnapshot(readEntries, modified, size);
+				}
+				handle.bumpVersion();
+				lastModified = modified;
+				lastSize = size;
+				lastJournalModified = journalModified;
+				lastJournalSize = journalSize;
+				lastSequence = sequence;
+			}
+			return true;
+		}
+	}
+	
+	private boolean isParsed() {
+		return entries != null || index != null || snapshot != null;
+	}
+	
+	/**
+	 * Reads every property in the config file in one pass of the ConfigTokenizer; the first
+	 * occurrence of a property name wins, as with the SVI ConfigFileParser. If the file has a
+	 * journal, the latest journal record for each property the file has replaces its value.
+	 * 
+	 * @param f
+	 * @param journal
+	 * @return
+	 * @throws IOException
+	 */
+	
+	private static HashMap<String, String> parse(File f, ConfigJournal journal) throws IOException{
+		HashMap<String, String> out = ConfigTokenizer.parse(ByteBuffer.wrap(Files.readAllBytes(f.toPath())));
+		if(journal.exists()) {
+			for(Map.Entry<String, String> e : journal.read().entrySet()) {
+				if(out.containsKey(e.getKey())) {
+					out.put(e.getKey(), e.getValue());
+				}
+			}
+		}
+		return out;
+	}
+	
+	private String lookup(String property) {
+		if(index != null) {
+			return index.get(property);
+		}
+		return snapshot != null ? snapshot.get(property) : entries.get(property);
+	}
+	
+	/**
+	 * Returns the file's snapshot if it was made from the file as it now is (as given by its
+	 * modified time and size), otherwise null; a snapshot older than the file is not even read.
+	 * 
+	 * @param modified
+	 * @param size
+	 * @return
+	 */
+	
+	private ConfigSnapshot loadSnapshot(long modified, long size) {
+		File f = ConfigSnapshot.getFile(file);
+		if(f.lastModified() < modified) {
+			return null;
+		}
+		try {
+			ConfigSnapshot out = ConfigSnapshot.read(f);
+			return out.isOf(modified, size) ? out : null;
+		}
+		catch(IOException e) {
+			return null;
+		}
+	}
+	
+	/**
+	 * Queues the parsed contents to be written as the file's snapshot on its I/O queue; if a write
+	 * is already queued, it writes these (newer) contents instead.
+	 * 
+	 * @param contents
+	 * @param modified
+	 * @param size
+	 */
+	
+	private void scheduleSnapshot(HashMap<String, String> contents, long modified, long size) {
+		snapshotEntries = contents;
+		snapshotModified = modified;
+		snapshotSize = size;
+		if(snapshotScheduled) {
+			return;
+		}
+		snapshotScheduled = true;
+		handle.getIOQueue().execute(new Runnable() {
+			@Override
+			public void run() {
+				writeSnapshot();
+			}
+		});
+	}
+	
+	private void writeSnapshot() {
+		HashMap<String, String> contents;
+		long modified;
+		long size;
+		synchronized(this) {
+			contents = snapshotEntries;
+			modified = snapshotModified;
+			size = snapshotSize;
+			snapshotEntries = null;
+			snapshotScheduled = false;
+		}
+		try {
+			ConfigSnapshot.write(file, contents, modified, size);
+		}
+		catch(IOException e) {
+			System.err.println("Failure to write config snapshot: " + ConfigSnapshot.getFile(file).getAbsolutePath());
+		}
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	public boolean isMapped() {
+		return mapped;
+	}
+	
+	public synchronized long getHitCount() {
+		return hits;
+	}
+	
+	public synchronized long getMissCount() {
+		return misses;
+	}
+	
+	/**
+	 * Getter method reporting how many times the file was loaded from its snapshot instead of parsed.
+	 * 
+	 * @return
+	 */
+	
+	public synchronized long getSnapshotLoadCount() {
+		return snapshotLoads;
+	}
+	
+	public static long getTotalHitCount() {
+		return totalHits.get();
+	}
+	
+	public static long getTotalMissCount() {
+		return totalMisses.get();
+	}
+	
+//---  Setter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Sets whether this cache keeps its file's contents as a ConfigIndex over the memory-mapped
+	 * file (values decoded as they are asked for) or as a map of every value; takes effect on the
+	 * next read.
+	 * 
+	 * @param map
+	 */
+	
+	public void setMapped(boolean map) {
+		if(mapped != map) {
+			mapped = map;
+			stale = true;
+		}
+	}
+	
+	/**
+	 * Sets whether a ConfigSnapshot of this cache's file is kept beside it and loaded in place of
+	 * parsing the file while it still matches; takes effect the next time the file is read.
+	 * 
+	 * @param snapshot
+	 */
+	
+	public void setSnapshots(boolean snapshot) {
+		snapshots = snapshot;
+	}
+	
+}
@@ -0,0 +1,383 @@
+package file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.concurrent.Executor;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
+
+/**
+ * 
+ * ConfigFileHandle is the one shared record for a single config file: its resolved Path, the
+ * ConfigStore its contents are kept in, its parsed ConfigCache, its WriteBehind queue, its ConfigWatcher, the read/write lock that orders
+ * this program's reads and writes of it, and the canonical FileAccess/PropertyAccess objects for it.
+ * 
+ * Handles are interned by the file's normalized real path, so every accessor for the same file
+ * (however its folder path was spelled) shares the same cache and writer; this is what lets
+ * caching and write coalescing work across every page of a ConfigMenu.
+ * 
+ * Reads and writes of the file take its lock through lockRead/lockWrite, which also take the
+ * file's ConfigFileLock (shared or exclusive) when locking across processes is turned on for it.
+ * 
+ */
+
+public class ConfigFileHandle {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	/** Shortest time between checks of the file on disk made by getVersion*/
+	private static final long VERSION_CHECK_NANOS = 10000000L;
+	
+	private static final HashMap<Path, ConfigFileHandle> handles = new HashMap<Path, ConfigFileHandle>();
+	
+	private static final AtomicLong totalMissingServed = new AtomicLong();
+	/** Store every file uses until given another with setStore*/
+	private static final ConfigStore DEFAULT_STORE = new TextConfigStore();
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private Path path;
+	
+	private File file;
+	
+	private volatile ConfigStore store;
+	
+	private ConfigCache cache;
+	
+	private WriteBehind writer;
+	
+	private ConfigJournal journal;
+	
+	private ConfigWatcher watcher;
+	
+	private ReentrantReadWriteLock lock;
+	
+	private ConfigFileLock processLock;
+	/** Sequence number of processLock as of getVersion's last look at it*/
+	private volatile long sequenceSeen;
+	/** Runs this file's asynchronous writes one at a time, in the order they were made*/
+	private Executor ioQueue;
+	/** Bumped whenever the file's contents as seen by this program change (a re-parse or a staged write)*/
+	private AtomicLong version;
+	/** System.nanoTime of getVersion's last check of the file on disk*/
+	private volatile long versionChecked;
+	
+	/** Properties found absent from the file at version 'missingVersion'; the negative lookup cache*/
+	private HashSet<String> missing;
+	
+	private long missingVersion;
+	
+	private AtomicLong missingServed;
+	
+	private FileAccess accessor;
+	
+	private HashMap<String, PropertyAccess> properties;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	private ConfigFileHandle(Path filePath) {
+		path = filePath;
+		file = filePath.toFile();
+		lock = new ReentrantReadWriteLock();
+		processLock = new ConfigFileLock(this);
+		ioQueue = ConfigIO.newSerialQueue();
+		version = new AtomicLong();
+		versionChecked = System.nanoTime() - VERSION_CHECK_NANOS;
+		store = DEFAULT_STORE;
+		journal = new ConfigJournal(this);
+		cache = new ConfigCache(this);
+		writer = new WriteBehind(this);
+		properties = new HashMap<String, PropertyAccess>();
+		missing = new HashSet<String>();
+		missingServed = new AtomicLong();
+	}
+	
+	/**
+	 * Getter method that retrieves the one ConfigFileHandle for the named config file in the given
+	 * folder, creating it the first time that file is asked for.
+	 * 
+	 * The config file name gets '.txt' appended if it doesn't already end with it, and the folder
+	 * is resolved to its real path so that './config/' and 'config' (or a symbolic link to it) land
+	 * on the same handle. A folder that doesn't exist yet is resolved through its nearest existing
+	 * parent, so the handle made before the folder is created is the one found once it has been.
+	 * 
+	 * Temporary files left beside the config file by rewrites that never finished are cleared away
+	 * when its handle is made (see ConfigFileWriter.removeStaleTemps).
+	 * 
+	 * @param folderPath
+	 * @param configName
+	 * @return
+	 */
+	
+	public static ConfigFileHandle get(String folderPath, String configName) {
+		Path key = resolve(folderPath, configName);
+		ConfigFileHandle out;
+		synchronized(handles) {
+			out = handles.get(key);
+			if(out != null) {
+				return out;
+			}
+			out = new ConfigFileHandle(key);
+			handles.put(key, out);
+		}
+		ConfigFileWriter.removeStaleTemps(out.file);
+		return out;
+	}
+	
+	private static Path resolve(String folderPath, String configName) {
+		Path dir = Paths.get(folderPath).toAbsolutePath().normalize();
+		for(Path existing = dir; existing != null; existing = existing.getParent()) {
+			try {
+				dir = existing.toRealPath().resolve(existing.relativize(dir));
+				break;
+			}
+			catch(IOException e) {
+				// Not there yet, try its parent and append the rest of the path to that
+			}
+		}
+		return dir.resolve(configName + (configName.endsWith(".txt") ? "" : ".txt"));
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	void bumpVersion() {
+		version.incrementAndGet();
+	}
+	
+	/**
+	 * Takes the file's lock for a write by this thread, and then (if this is the thread's outermost
+	 * hold on it) the exclusive lock across processes; always pair with unlockWrite in a finally.
+	 * 
+	 */
+	
+	void lockWrite() {
+		lock.writeLock().lock();
+		if(lock.getWriteHoldCount() == 1) {
+			processLock.acquireExclusive();
+		}
+	}
+	
+	/**
+	 * Notes that this thread changed the file on disk while holding the write lock, so that other
+	 * programs are told (by the ConfigFileLock's sequence number) when it is released; releasing a
+	 * write lock without having written leaves them nothing to re-read.
+	 * 
+	 */
+	
+	void markWritten() {
+		processLock.markWritten();
+	}
+	
+	void unlockWrite() {
+		if(lock.getWriteHoldCount() == 1) {
+			processLock.releaseExclusive();
+		}
+		lock.writeLock().unlock();
+	}
+	
+	/**
+	 * Takes the file's lock for a read by this thread, and then the shared lock across processes
+	 * unless this thread is already writing the file (and so holds the exclusive one).
+	 * 
+	 */
+	
+	void lockRead() {
+		lock.readLock().lock();
+		if(!lock.isWriteLockedByCurrentThread()) {
+			processLock.acquireShared();
+		}
+	}
+	
+	void unlockRead() {
+		if(!lock.isWriteLockedByCurrentThread()) {
+			processLock.releaseShared();
+		}
+		lock.readLock().unlock();
+	}
+	
+	/**
+	 * Returns the property's current value (a pending write-behind value, or else the file's), or
+	 * null if it isn't present; absent properties are remembered until the file's version changes,
+	 * so repeatedly asking for one that isn't there doesn't re-check the file each time.
+	 * 
+	 * @param property
+	 * @return
+	 */
+	
+	String find(String property) {
+		long at = getVersion();
+		synchronized(missing) {
+			if(missingVersion != at) {
+				missing.clear();
+				missingVersion = at;
+			}
+			else if(missing.contains(property)) {
+				missingServed.incrementAndGet();
+				totalMissingServed.incrementAndGet();
+				return null;
+			}
+		}
+		String out = writer.getPending(property);
+		if(out == null) {
+			out = store.get(this, property);
+		}
+		if(out == null) {
+			synchronized(missing) {
+				if(missingVersion == at) {
+					missing.add(property);
+				}
+			}
+			missingServed.incrementAndGet();
+			totalMissingServed.incrementAndGet();
+		}
+		return out;
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	public static ArrayList<ConfigFileHandle> getAll(){
+		synchronized(handles) {
+			return new ArrayList<ConfigFileHandle>(handles.values());
+		}
+	}
+	
+	/**
+	 * Returns the canonical FileAccess for this file, which every getConfigAccessor call for
+	 * the file hands out instead of building a new one.
+	 * 
+	 * @return
+	 */
+	
+	public synchronized FileAccess getAccessor() {
+		if(accessor == null) {
+			accessor = new FileAccess(this);
+		}
+		return accessor;
+	}
+	
+	public synchronized PropertyAccess getPropertyAccessor(String property) {
+		PropertyAccess out = properties.get(property);
+		if(out == null) {
+			out = new PropertyAccess(this, property);
+			properties.put(property, out);
+		}
+		return out;
+	}
+	
+	public synchronized ConfigWatcher getWatcher() {
+		if(watcher == null) {
+			watcher = new ConfigWatcher(this);
+		}
+		return watcher;
+	}
+	
+	/**
+	 * Returns this file's watcher without creating one; null if nothing has subscribed to the file.
+	 * 
+	 * @return
+	 */
+	
+	public synchronized ConfigWatcher peekWatcher() {
+		return watcher;
+	}
+	
+	/**
+	 * Returns a number that changes whenever a property of this file may have changed value.
+	 * 
+	 * Writes made through this program change it straight away; the file on disk is checked for
+	 * outside edits (a size/modified-time check unless it really changed) at most once every
+	 * VERSION_CHECK_NANOS, so that calling this every frame doesn't cost a system call every frame.
+	 * With locking across processes on, another program's write is also seen straight away, by the
+	 * ConfigFileLock's sequence number changing.
+	 * 
+	 * Anything decoded from the file's values stays good for as long as this number is unchanged.
+	 * 
+	 * @return
+	 */
+	
+	public long getVersion() {
+		long now = System.nanoTime();
+		long sequence = processLock.getSequence();
+		if(now - versionChecked >= VERSION_CHECK_NANOS || sequence != sequenceSeen) {
+			versionChecked = now;
+			sequenceSeen = sequence;
+			store.refresh(this);
+		}
+		return version.get();
+	}
+	
+	/**
+	 * Getter methods reporting how many lookups of properties that weren't present were answered,
+	 * for this file and for every file.
+	 * 
+	 * @return
+	 */
+	
+	public long getMissingServedCount() {
+		return missingServed.get();
+	}
+	
+	public static long getTotalMissingServedCount() {
+		return totalMissingServed.get();
+	}
+	
+	public Path getPath() {
+		return path;
+	}
+	
+	public File getFile() {
+		return file;
+	}
+	
+	public ConfigStore getStore() {
+		return store;
+	}
+	
+	public ConfigCache getCache() {
+		return cache;
+	}
+	
+	public WriteBehind getWriter() {
+		return writer;
+	}
+	
+	public ConfigJournal getJournal() {
+		return journal;
+	}
+	
+	public ReentrantReadWriteLock getLock() {
+		return lock;
+	}
+	
+	public ConfigFileLock getProcessLock() {
+		return processLock;
+	}
+	
+	public Executor getIOQueue() {
+		return ioQueue;
+	}
+	
+//---  Setter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Sets the ConfigStore this file's contents are read from and written to; anything still waiting
+	 * to be written is written to the old store first.
+	 * 
+	 * @param configStore
+	 */
+	
+	public void setStore(ConfigStore configStore) {
+		if(store == configStore) {
+			return;
+		}
+		writer.flush();
+		store = configStore;
+		bumpVersion();
+	}
+	
+}
@@ -0,0 +1,340 @@
+package file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.channels.FileLock;
+import java.nio.file.StandardOpenOption;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * 
+ * ConfigFileLock coordinates one config file between separate programs (JVMs) using it at the same
+ * time, when process locking is turned on for it (see FileAccess.setProcessLocking): every read of
+ * the file takes a shared FileChannel lock and every write an exclusive one, so two programs can't
+ * both read-modify-write the file and lose one of the writes.
+ * 
+ * The locks are taken on a sidecar file beside the config file (config.txt.lock) rather than on the
+ * config file itself, as the config file is replaced by a rename on every rewrite; each config file
+ * has its own sidecar, so programs working on different files never wait on each other. Inside this
+ * program the ConfigFileHandle's read/write lock is taken first, and only the outermost holder
+ * takes the FileChannel lock (a JVM may only hold one FileChannel lock on a region of a file).
+ * 
+ * The sidecar also holds a sequence number that every write through a ConfigFileLock increments
+ * (an exclusive lock released without the file having been written, see markWritten, leaves it alone).
+ * It is memory-mapped, so reading it costs no system call; a program sees another program's writes
+ * by the sequence number changing, even ones that don't change the file's size and land within
+ * the same last-modified tick.
+ * 
+ * The FileChannel lock is never waited for while this object's monitor is held, so a program waiting
+ * on another's writer doesn't also hold up getSequence or this program's other callers in between.
+ * 
+ * Counts of lock acquisitions that had to wait (and for how long), and of writes made by other
+ * programs, are kept to show how much the programs are getting in each other's way.
+ * 
+ */
+
+public class ConfigFileLock {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	public static final String LOCK_SUFFIX = ".lock";
+	/** Bytes at the start of the sidecar holding the sequence number*/
+	private static final int SEQUENCE_BYTES = 8;
+	
+	private static final AtomicLong totalContended = new AtomicLong();
+	
+	private static final AtomicLong totalWaitNanos = new AtomicLong();
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private File file;
+	
+	private volatile boolean enabled;
+	
+	private FileChannel channel;
+	
+	private volatile MappedByteBuffer sequence;
+	/** The one shared FileLock held for all of this program's current readers, and how many there are*/
+	private FileLock shared;
+	
+	private int sharedCount;
+	/** Whether a thread is taking the shared FileLock for the first reader, which the others wait on*/
+	private boolean sharing;
+	
+	private FileLock exclusive;
+	/** Whether the file was written under the exclusive lock now held, see markWritten*/
+	private boolean written;
+	/** Sequence number this program last wrote, to tell its own writes from other programs'*/
+	private volatile long ownSequence;
+	
+	private AtomicLong acquired;
+	
+	private AtomicLong contended;
+	
+	private AtomicLong waitNanos;
+	
+	private AtomicLong foreignWrites;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	ConfigFileLock(ConfigFileHandle fileHandle) {
+		file = fileHandle.getPath().resolveSibling(fileHandle.getPath().getFileName() + LOCK_SUFFIX).toFile();
+		acquired = new AtomicLong();
+		contended = new AtomicLong();
+		waitNanos = new AtomicLong();
+		foreignWrites = new AtomicLong();
+		ownSequence = -1;
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	/**
+	 * Takes the shared lock for a read by this program; only the first of any concurrent readers
+	 * actually locks the sidecar. Called by ConfigFileHandle.lockRead with the read lock held.
+	 * 
+	 */
+	
+	void acquireShared() {
+		synchronized(this) {
+			if(!enabled) {
+				return;
+			}
+			boolean interrupted = false;
+			while(sharing) {
+				try {
+					wait();
+				}
+				catch(InterruptedException e) {
+					interrupted = true;
+				}
+			}
+			if(interrupted) {
+				Thread.currentThread().interrupt();
+			}
+			if(sharedCount++ > 0) {
+				return;
+			}
+			sharing = true;
+		}
+		FileLock fl = obtain(true);
+		synchronized(this) {
+			shared = fl;
+			sharing = false;
+			notifyAll();
+		}
+	}
+	
+	synchronized void releaseShared() {
+		if(sharedCount > 0 && --sharedCount == 0) {
+			release(shared);
+			shared = null;
+		}
+	}
+	
+	/**
+	 * Takes the exclusive lock for a write by this program; called by ConfigFileHandle.lockWrite
+	 * by the outermost holder of the write lock.
+	 * 
+	 */
+	
+	void acquireExclusive() {
+		if(enabled) {
+			FileLock fl = obtain(false);
+			synchronized(this) {
+				exclusive = fl;
+				written = false;
+			}
+		}
+	}
+	
+	/**
+	 * Notes that the config file was written under the exclusive lock now held, so that releasing
+	 * it increments the sequence number.
+	 * 
+	 */
+	
+	synchronized void markWritten() {
+		written = true;
+	}
+	
+	/**
+	 * Increments the sequence number if the file was written (see markWritten), telling other programs
+	 * to re-read it, and releases the exclusive lock.
+	 * 
+	 */
+	
+	synchronized void releaseExclusive() {
+		if(exclusive != null) {
+			if(written) {
+				long next = sequence.getLong(0) + 1;
+				sequence.putLong(0, next);
+				ownSequence = next;
+				written = false;
+			}
+			release(exclusive);
+			exclusive = null;
+		}
+	}
+	
+	/**
+	 * Notes that the cache saw the sequence number move to the given value, counting it as another
+	 * program's write if it isn't the last one this program made.
+	 * 
+	 * @param seen
+	 */
+	
+	void noteSequence(long seen) {
+		if(seen != ownSequence) {
+			foreignWrites.incrementAndGet();
+		}
+	}
+	
+	/**
+	 * Locks the sidecar, first trying without waiting so that a lock that had to be waited for is
+	 * counted (with how long it took); if the sidecar can't be locked at all the read or write goes
+	 * ahead with only this program's own locking, rather than failing. Called without the monitor held.
+	 * 
+	 * @param isShared
+	 * @return
+	 */
+	
+	private FileLock obtain(boolean isShared) {
+		try {
+			FileChannel fc;
+			synchronized(this) {
+				open();
+				fc = channel;
+			}
+			acquired.incrementAndGet();
+			FileLock out = fc.tryLock(0, Long.MAX_VALUE, isShared);
+			if(out == null) {
+				contended.incrementAndGet();
+				totalContended.incrementAndGet();
+				long start = System.nanoTime();
+				out = fc.lock(0, Long.MAX_VALUE, isShared);
+				long waited = System.nanoTime() - start;
+				waitNanos.addAndGet(waited);
+				totalWaitNanos.addAndGet(waited);
+			}
+			return out;
+		}
+		catch(IOException e) {
+			System.err.println("Failure to lock config file across processes: " + file.getAbsolutePath());
+			return null;
+		}
+	}
+	
+	private void release(FileLock fl) {
+		if(fl == null) {
+			return;
+		}
+		try {
+			fl.release();
+		}
+		catch(IOException e) {
+			System.err.println("Failure to unlock config file across processes: " + file.getAbsolutePath());
+		}
+	}
+	
+	/**
+	 * Opens the sidecar (creating it, and its sequence number, if needed) and maps its sequence number.
+	 * 
+	 * @throws IOException
+	 */
+	
+	private void open() throws IOException{
+		if(channel != null) {
+			return;
+		}
+		File dir = file.getAbsoluteFile().getParentFile();
+		if(dir != null) {
+			dir.mkdirs();
+		}
+		FileChannel fc = FileChannel.open(file.toPath(), StandardOpenOption.CREATE, StandardOpenOption.READ, StandardOpenOption.WRITE);
+		if(fc.size() < SEQUENCE_BYTES) {
+			fc.write(ByteBuffer.allocate(SEQUENCE_BYTES), 0);
+		}
+		sequence = fc.map(FileChannel.MapMode.READ_WRITE, 0, SEQUENCE_BYTES);
+		channel = fc;
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Returns the sidecar's sequence number, which changes whenever any program writes the config
+	 * file through a ConfigFileLock; 0 while process locking is off. A memory read, not a system call,
+	 * and never waits on a lock being taken.
+	 * 
+	 * @return
+	 */
+	
+	public long getSequence() {
+		MappedByteBuffer mbb = sequence;
+		return enabled && mbb != null ? mbb.getLong(0) : 0;
+	}
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	public File getFile() {
+		return file;
+	}
+	
+	/**
+	 * Getter methods reporting how many times this file's sidecar was locked, how many of those had
+	 * to wait on another program, the total time spent waiting, and how many writes by other
+	 * programs this program has noticed.
+	 * 
+	 * @return
+	 */
+	
+	public long getAcquiredCount() {
+		return acquired.get();
+	}
+	
+	public long getContendedCount() {
+		return contended.get();
+	}
+	
+	public long getWaitNanos() {
+		return waitNanos.get();
+	}
+	
+	public long getForeignWriteCount() {
+		return foreignWrites.get();
+	}
+	
+	public static long getTotalContendedCount() {
+		return totalContended.get();
+	}
+	
+	public static long getTotalWaitNanos() {
+		return totalWaitNanos.get();
+	}
+	
+//---  Setter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Turns locking across processes on or off for this config file; while it is off no sidecar is
+	 * made and reads and writes only use this program's own locking.
+	 * 
+	 * @param lock
+	 */
+	
+	public synchronized void setEnabled(boolean lock) {
+		enabled = lock;
+		if(lock) {
+			try {
+				open();
+			}
+			catch(IOException e) {
+				System.err.println("Failure to open config file lock: " + file.getAbsolutePath());
+			}
+		}
+	}
+	
+}
@@ -0,0 +1,516 @@
+package file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.DirectoryStream;
+import java.nio.file.FileAlreadyExistsException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.concurrent.ThreadLocalRandom;
+
+import filemeta.config.ConfigFileParser;
+
+/**
+ * 
+ * ConfigFileWriter rewrites a config file with any number of property values replaced in a single
+ * pass over the file, where the SVI ConfigFileParser.setContents re-reads and rewrites the whole
+ * file once per property.
+ * 
+ * Follows the same rules as setContents: every occurrence of a property is replaced (including any
+ * extra lines its old value spanned), properties not already in the file are not added, and all other
+ * bytes of the file are kept exactly as they were. Entries are found with the ConfigTokenizer.
+ * 
+ * The new contents are written as UTF-8 to a temporary file beside the config file, which is then
+ * renamed over it in one atomic step, so anything reading the config file sees either the old
+ * contents or the new contents and never a missing or half-written file. How often the written
+ * data is forced to disk (fsync) is set by the durability policy, see setDurability.
+ * 
+ * Can also append entries to the end of a file (see append), which is how a ConfigJournal records
+ * updates without rewriting the config file, and add whichever declared entries a file is missing
+ * (see addMissing), which is how a ConfigTree creates and patches config files.
+ * 
+ */
+
+public class ConfigFileWriter {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	private static final byte[] EQUAL_SYMBOL = ConfigFileParser.ENTRY_EQUAL_SYMBOL.getBytes(StandardCharsets.UTF_8);
+	
+	private static final byte[] VALUE_END_SYMBOL = ConfigFileParser.ENTRY_VALUE_END_SYMBOL.getBytes(StandardCharsets.UTF_8);
+	
+	private static final byte[] COMMENT_SYMBOL = ConfigFileParser.COMMENT_SYMBOL.getBytes(StandardCharsets.UTF_8);
+	
+	private static final String TEMP_SUFFIX = ".tmp";
+	/** A temporary file untouched for this long is taken to be left by a rewrite that never finished*/
+	private static final long STALE_TEMP_MILLIS = 60000;
+	/** Value the SVI Config gives properties that haven't been set*/
+	static final String NULL_VALUE = "null";
+	/** Under DURABILITY_BATCHED, a file is synced once this many writes to it have gone unsynced*/
+	private static final int SYNC_BATCH_SIZE = 16;
+	/** Under DURABILITY_BATCHED, a file is synced on the first write this long after its last sync*/
+	private static final long SYNC_BATCH_MILLIS = 1000;
+	
+	/** Every write is forced to disk before the rename, and the rename itself is then forced*/
+	public static final int DURABILITY_ALWAYS = 0;
+	/** Writes are forced to disk every SYNC_BATCH_SIZE writes or SYNC_BATCH_MILLIS, and on shutdown*/
+	public static final int DURABILITY_BATCHED = 1;
+	/** Writes are left to the operating system to put on disk when it chooses*/
+	public static final int DURABILITY_NEVER = 2;
+	
+	private static volatile int durability = DURABILITY_BATCHED;
+	/** Per file, how many writes have not been forced to disk and when it was last forced*/
+	private static final HashMap<Path, long[]> unsynced = new HashMap<Path, long[]>();
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	public static boolean rewrite(File f, Map<String, String> updates) {
+		try {
+			write(f, buildContents(f, updates));
+			return true;
+		}
+		catch(IOException e) {
+			System.err.println("Failure to write " + updates.size() + " entries to config file: " + f.getAbsolutePath());
+			return false;
+		}
+	}
+	
+	/**
+	 * Appends a 'name = value</;>' line for each of the entries to the end of the file (creating it
+	 * if needed), forcing it to disk as the durability policy calls for.
+	 * 
+	 * @param f
+	 * @param entries
+	 * @return
+	 */
+	
+	public static boolean append(File f, Map<String, String> entries) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		for(Map.Entry<String, String> e : entries.entrySet()) {
+			writeEntry(out, e.getKey(), e.getValue());
+		}
+		Path target = f.getAbsoluteFile().toPath();
+		try {
+			FileChannel fc = FileChannel.open(target, StandardOpenOption.CREATE, StandardOpenOption.APPEND, StandardOpenOption.WRITE);
+			try {
+				ByteBuffer bb = ByteBuffer.wrap(out.toByteArray());
+				while(bb.hasRemaining()) {
+					fc.write(bb);
+				}
+				if(shouldSync(target)) {
+					fc.force(false);
+				}
+			}
+			finally {
+				fc.close();
+			}
+			return true;
+		}
+		catch(IOException e) {
+			System.err.println("Failure to append " + entries.size() + " entries to file: " + f.getAbsolutePath());
+			return false;
+		}
+	}
+	
+	/**
+	 * Adds each of the entries that the file doesn't already have to its end, in the same layout the
+	 * SVI Config writes new files in ('#####' line, then 'name = value</;>'), as one atomic rewrite;
+	 * if the file doesn't exist it is created, starting with the '#####description' line. Entries
+	 * already in the file keep their values. Returns how many entries were added (the file is not
+	 * touched if that is none).
+	 * 
+	 * @param f
+	 * @param description
+	 * @param defaults
+	 * @return
+	 * @throws IOException
+	 */
+	
+	public static int addMissing(File f, String description, Map<String, String> defaults) throws IOException{
+		return ensureEntries(f, description, defaults, new HashMap<String, String>(), false).size();
+	}
+	
+	/**
+	 * Reads the file once and writes it at most once (creating it if needed, as addMissing does) so that:
+	 * each of the updates replaces its property's value, as rewrite does; each default whose property
+	 * is missing is appended (with the update's value, if there is one); and, with replaceNull, each
+	 * default whose property's value is 'null' replaces it.
+	 * 
+	 * Returns every property whose value was written mapped to that value; the file is not touched
+	 * if that is none.
+	 * 
+	 * @param f
+	 * @param description
+	 * @param defaults
+	 * @param updates
+	 * @param replaceNull
+	 * @return
+	 * @throws IOException
+	 */
+	
+	static HashMap<String, String> ensureEntries(File f, String description, Map<String, String> defaults, Map<String, String> updates, boolean replaceNull) throws IOException{
+		HashMap<String, String> written = new HashMap<String, String>();
+		HashSet<String> present = new HashSet<String>();
+		ByteArrayOutputStream out = new ByteArrayOutputStream();
+		boolean exists = f.exists();
+		boolean unterminated = false;
+		if(exists) {
+			byte[] in = Files.readAllBytes(f.toPath());
+			HashMap<String, String> replace = new HashMap<String, String>(updates);
+			ConfigTokenizer ct = new ConfigTokenizer(ByteBuffer.wrap(in));
+			while(ct.next()) {
+				String name = ct.getName();
+				present.add(name);
+				if(replaceNull && !replace.containsKey(name) && defaults.containsKey(name) && NULL_VALUE.equals(ct.getValue())) {
+					replace.put(name, defaults.get(name));
+				}
+				if(replace.containsKey(name)) {
+					written.put(name, replace.get(name));
+				}
+			}
+			byte[] body = written.isEmpty() ? in : buildContents(in, replace);
+			out.write(body, 0, body.length);
+			unterminated = body.length > 0 && body[body.length - 1] != '\n';
+		}
+		else {
+			writeComment(out, description);
+		}
+		for(Map.Entry<String, String> e : defaults.entrySet()) {
+			String name = e.getKey();
+			if(present.contains(name)) {
+				continue;
+			}
+			if(unterminated) {
+				out.write('\n');
+				unterminated = false;
+			}
+			String value = updates.containsKey(name) ? updates.get(name) : e.getValue();
+			writeComment(out, "");
+			writeEntry(out, name, value);
+			written.put(name, value);
+		}
+		if(!written.isEmpty() || !exists) {
+			write(f, out.toByteArray());
+		}
+		return written;
+	}
+	
+	private static void writeEntry(ByteArrayOutputStream out, String property, String value) {
+		byte[] name = property.getBytes(StandardCharsets.UTF_8);
+		byte[] text = value.getBytes(StandardCharsets.UTF_8);
+		out.write(name, 0, name.length);
+		out.write(EQUAL_SYMBOL, 0, EQUAL_SYMBOL.length);
+		out.write(text, 0, text.length);
+		out.write(VALUE_END_SYMBOL, 0, VALUE_END_SYMBOL.length);
+		out.write('\n');
+	}
+	
+	private static void writeComment(ByteArrayOutputStream out, String comment) {
+		byte[] text = comment.getBytes(StandardCharsets.UTF_8);
+		out.write(COMMENT_SYMBOL, 0, COMMENT_SYMBOL.length);
+		out.write(text, 0, text.length);
+		out.write('\n');
+	}
+	
+	/**
+	 * Copies the file's bytes through unchanged except for the entries being updated, which are
+	 * replaced whole (from the start of their name to the end of the line their value ends on).
+	 * 
+	 * @param f
+	 * @param updates
+	 * @return
+	 * @throws IOException
+	 */
+	
+	private static byte[] buildContents(File f, Map<String, String> updates) throws IOException{
+		return buildContents(Files.readAllBytes(f.toPath()), updates);
+	}
+	
+	private static byte[] buildContents(byte[] in, Map<String, String> updates) {
+		ByteArrayOutputStream out = new ByteArrayOutputStream(in.length + 64);
+		ConfigTokenizer ct = new ConfigTokenizer(ByteBuffer.wrap(in));
+		int copied = 0;
+		while(ct.next()) {
+			String name = ct.getName();
+			if(updates.containsKey(name)) {
+				out.write(in, copied, ct.getEntryStart() - copied);
+				out.write(in, ct.getEntryStart(), ct.getNameEnd() - ct.getEntryStart());
+				out.write(EQUAL_SYMBOL, 0, EQUAL_SYMBOL.length);
+				byte[] value = updates.get(name).getBytes(StandardCharsets.UTF_8);
+				out.write(value, 0, value.length);
+				out.write(VALUE_END_SYMBOL, 0, VALUE_END_SYMBOL.length);
+				out.write('\n');
+				copied = ct.getEntryEnd();
+			}
+		}
+		out.write(in, copied, in.length - copied);
+		return out.toByteArray();
+	}
+	
+	/**
+	 * Writes the contents to a sibling temporary file through a FileChannel, forces it to disk if
+	 * the durability policy calls for it, and renames it over the config file.
+	 * 
+	 * @param f
+	 * @param contents
+	 * @throws IOException
+	 */
+	
+	private static void write(File f, byte[] contents) throws IOException{
+		install(writeTemp(f, contents), f);
+	}
+	
+	/**
+	 * First half of a rewrite: writes the file's new contents, with the updates applied, to its
+	 * temporary file without touching the file itself, and returns the temporary file's location
+	 * to pass to install. Lets a ConfigTransaction get every file's new contents safely written
+	 * before any of them is replaced.
+	 * 
+	 * @param f
+	 * @param updates
+	 * @return
+	 * @throws IOException
+	 */
+	
+	static Path prepare(File f, Map<String, String> updates) throws IOException{
+		return writeTemp(f, buildContents(f, updates));
+	}
+	
+	/**
+	 * Writes the contents to the file's temporary file, as prepare does, for contents built elsewhere
+	 * (such as a BinaryConfigStore's); pass the result to install.
+	 * 
+	 * Each call makes a new, uniquely named temporary file beside the config file (CREATE_NEW, so the
+	 * name is never one already in use), so two programs rewriting the same file at once never write
+	 * into each other's temporary file and whichever rename lands last installs a whole file; the
+	 * temporary file is deleted if writing it fails. One left behind by a program that stopped
+	 * part way through is deleted when the file's handle is next made (see removeStaleTemps).
+	 * 
+	 * @param f
+	 * @param contents
+	 * @return
+	 * @throws IOException
+	 */
+	
+	static Path writeTemp(File f, byte[] contents) throws IOException{
+		Path target = f.getAbsoluteFile().toPath();
+		Path temp;
+		FileChannel fc;
+		while(true) {
+			temp = target.resolveSibling("." + target.getFileName() + "." + Long.toHexString(ThreadLocalRandom.current().nextLong()) + TEMP_SUFFIX);
+			try {
+				fc = FileChannel.open(temp, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE);
+				break;
+			}
+			catch(FileAlreadyExistsException e) {
+				continue;
+			}
+		}
+		try {
+			try {
+				ByteBuffer bb = ByteBuffer.wrap(contents);
+				while(bb.hasRemaining()) {
+					fc.write(bb);
+				}
+				if(shouldSync(target)) {
+					fc.force(true);
+				}
+			}
+			finally {
+				fc.close();
+			}
+		}
+		catch(IOException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		return temp;
+	}
+	
+	/**
+	 * Second half of a rewrite: renames the temporary file made by prepare over the config file
+	 * (deleting it instead if the rename fails).
+	 * 
+	 * @param temp
+	 * @param f
+	 * @throws IOException
+	 */
+	
+	static void install(Path temp, File f) throws IOException{
+		Path target = f.getAbsoluteFile().toPath();
+		try {
+			try {
+				Files.move(temp, target, StandardCopyOption.ATOMIC_MOVE, StandardCopyOption.REPLACE_EXISTING);
+			}
+			catch(AtomicMoveNotSupportedException e) {
+				Files.move(temp, target, StandardCopyOption.REPLACE_EXISTING);
+			}
+		}
+		catch(IOException e) {
+			Files.deleteIfExists(temp);
+			throw e;
+		}
+		if(durability == DURABILITY_ALWAYS) {
+			syncDirectory(target.getParent());
+		}
+	}
+	
+	/**
+	 * Deletes the temporary files (see writeTemp) left beside the file by rewrites that never got
+	 * as far as install, such as when the program was stopped part way through; called when the
+	 * file's handle is made. Only those untouched for STALE_TEMP_MILLIS are deleted, so a rewrite
+	 * another program has under way keeps its temporary file.
+	 * 
+	 * @param f
+	 */
+	
+	static void removeStaleTemps(File f) {
+		Path target = f.getAbsoluteFile().toPath();
+		String prefix = "." + target.getFileName() + ".";
+		long cutoff = System.currentTimeMillis() - STALE_TEMP_MILLIS;
+		DirectoryStream<Path> dir;
+		try {
+			dir = Files.newDirectoryStream(target.getParent());
+		}
+		catch(IOException e) {
+			return;
+		}
+		try {
+			for(Path p : dir) {
+				String name = p.getFileName().toString();
+				if(!name.startsWith(prefix) || !name.endsWith(TEMP_SUFFIX)) {
+					continue;
+				}
+				try {
+					if(Files.getLastModifiedTime(p).toMillis() < cutoff) {
+						Files.deleteIfExists(p);
+					}
+				}
+				catch(IOException e) {
+					System.err.println("Failure to delete stale temporary file: " + p);
+				}
+			}
+		}
+		finally {
+			try {
+				dir.close();
+			}
+			catch(IOException e) {
+				return;
+			}
+		}
+	}
+	
+	/**
+	 * Forces every config file that has writes not yet forced to disk under DURABILITY_BATCHED;
+	 * called on shutdown after pending write-behind values are flushed.
+	 * 
+	 */
+	
+	public static void syncAll() {
+		ArrayList<Path> paths;
+		synchronized(unsynced) {
+			paths = new ArrayList<Path>();
+			for(Map.Entry<Path, long[]> e : unsynced.entrySet()) {
+				if(e.getValue()[0] > 0) {
+					paths.add(e.getKey());
+					e.getValue()[0] = 0;
+				}
+			}
+		}
+		for(Path p : paths) {
+			if(!Files.exists(p)) {
+				continue;
+			}
+			try {
+				FileChannel fc = FileChannel.open(p, StandardOpenOption.WRITE);
+				try {
+					fc.force(true);
+				}
+				finally {
+					fc.close();
+				}
+			}
+			catch(IOException e) {
+				System.err.println("Failure to sync config file: " + p);
+			}
+		}
+	}
+	
+	/**
+	 * Decides by the durability policy whether this write to the file should be forced to disk,
+	 * keeping count of the writes that weren't.
+	 * 
+	 * @param target
+	 * @return
+	 */
+	
+	private static boolean shouldSync(Path target) {
+		int policy = durability;
+		if(policy != DURABILITY_BATCHED) {
+			return policy == DURABILITY_ALWAYS;
+		}
+		long now = System.currentTimeMillis();
+		synchronized(unsynced) {
+			long[] state = unsynced.get(target);
+			if(state == null) {
+				state = new long[] {0, now};
+				unsynced.put(target, state);
+			}
+			if(state[0] + 1 >= SYNC_BATCH_SIZE || now - state[1] >= SYNC_BATCH_MILLIS) {
+				state[0] = 0;
+				state[1] = now;
+				return true;
+			}
+			state[0]++;
+			return false;
+		}
+	}
+	
+	/**
+	 * Forces the folder's record of the rename to disk; not every platform allows a folder to be
+	 * opened this way (Windows doesn't), in which case the rename is left to the OS.
+	 * 
+	 * @param dir
+	 */
+	
+	private static void syncDirectory(Path dir) {
+		try {
+			FileChannel fc = FileChannel.open(dir, StandardOpenOption.READ);
+			try {
+				fc.force(true);
+			}
+			finally {
+				fc.close();
+			}
+		}
+		catch(IOException e) {
+			return;
+		}
+	}
+	
+//---  Setter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Sets how often config file writes are forced to disk; one of DURABILITY_ALWAYS (safest,
+	 * slowest), DURABILITY_BATCHED (the default) or DURABILITY_NEVER.
+	 * 
+	 * @param policy
+	 */
+	
+	public static void setDurability(int policy) {
+		durability = policy;
+	}
+	
+}
@@ -0,0 +1,109 @@
+package file;
+
+import java.lang.reflect.Method;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ThreadFactory;
+
+/**
+ * 
+ * ConfigIO owns the executor that the asynchronous FileAccess methods (accessDataAsync, assignDataAsync)
+ * run their file work on, so that reading and rewriting config files never happens on the thread that
+ * handles user input.
+ * 
+ * Uses a virtual thread per task where the running Java version has them (found by reflection, so
+ * this still builds and runs on older versions) and otherwise a pool of daemon threads.
+ * 
+ * Work that must happen in order, like the rewrites of one config file, goes through a serial queue
+ * (see newSerialQueue) that runs its tasks one at a time, in the order given, on that executor.
+ * 
+ */
+
+public class ConfigIO {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	private static final ExecutorService executor = createExecutor();
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	private static ExecutorService createExecutor() {
+		try {
+			Method virtual = Executors.class.getMethod("newVirtualThreadPerTaskExecutor");
+			return (ExecutorService)virtual.invoke(null);
+		}
+		catch(ReflectiveOperationException e) {
+			return Executors.newCachedThreadPool(new ThreadFactory() {
+				@Override
+				public Thread newThread(Runnable r) {
+					Thread t = new Thread(r, "config-io");
+					t.setDaemon(true);
+					return t;
+				}
+			});
+		}
+	}
+	
+	/**
+	 * Returns a new Executor that runs the tasks given to it one at a time, in the order they were
+	 * given, on the shared I/O executor.
+	 * 
+	 * @return
+	 */
+	
+	public static Executor newSerialQueue() {
+		return new SerialQueue();
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	public static Executor getExecutor() {
+		return executor;
+	}
+	
+//---  Mechanics   ----------------------------------------------------------------------------
+	
+	private static class SerialQueue implements Executor {
+		
+		private ArrayDeque<Runnable> tasks = new ArrayDeque<Runnable>();
+		
+		private boolean running;
+		
+		@Override
+		public synchronized void execute(final Runnable task) {
+			tasks.add(task);
+			if(!running) {
+				running = true;
+				executor.execute(new Runnable() {
+					@Override
+					public void run() {
+						drain();
+					}
+				});
+			}
+		}
+		
+		private void drain() {
+			while(true) {
+				Runnable next;
+				synchronized(this) {
+					next = tasks.poll();
+					if(next == null) {
+						running = false;
+						return;
+					}
+				}
+				try {
+					next.run();
+				}
+				catch(RuntimeException e) {
+					e.printStackTrace();
+				}
+			}
+		}
+	
+	}
+	
+}
@@ -0,0 +1,137 @@
+package file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.HashMap;
+
+/**
+ * 
+ * ConfigIndex is the ConfigCache's contents for a file read in mapped mode (see FileAccess.READ_MAPPED):
+ * the file is memory-mapped through a FileChannel and tokenized once into a map of property name to
+ * where its value sits in the file, and a value is only decoded into a String the first time it is
+ * asked for.
+ * 
+ * Lookups are a single hash map access and values nobody asks for are never copied onto the heap,
+ * which suits generated config files with tens of thousands of entries or very long values.
+ * 
+ * The mapping is of the file as it was when indexed; FileAccess replaces config files by renaming
+ * a new file over them rather than writing into them, so a mapped file never changes under the index
+ * and the ConfigCache just indexes the new file when it notices the change.
+ * 
+ */
+
+public class ConfigIndex {
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private MappedByteBuffer buffer;
+	/** Property name to its value's start (high 32 bits) and end (low 32 bits) positions in the buffer*/
+	private HashMap<String, Long> positions;
+	/** Values already decoded, and values replacing the file's (from its journal)*/
+	private HashMap<String, String> decoded;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	private ConfigIndex(MappedByteBuffer mapped) {
+		buffer = mapped;
+		positions = new HashMap<String, Long>();
+		decoded = new HashMap<String, String>();
+		ConfigTokenizer ct = new ConfigTokenizer(mapped);
+		while(ct.next()) {
+			String name = ct.getName();
+			if(!positions.containsKey(name)) {
+				positions.put(name, ((long)ct.getValueStart() << 32) | ct.getValueEnd());
+			}
+		}
+	}
+	
+	/**
+	 * Maps the file into memory read-only and indexes it; files over 2GB can't be mapped in one
+	 * piece and throw an IOException.
+	 * 
+	 * @param f
+	 * @return
+	 * @throws IOException
+	 */
+	
+	public static ConfigIndex map(File f) throws IOException{
+		FileChannel fc = FileChannel.open(f.toPath(), StandardOpenOption.READ);
+		try {
+			if(fc.size() > Integer.MAX_VALUE) {
+				throw new IOException("Config file too large to map: " + f.getAbsolutePath());
+			}
+			return new ConfigIndex(fc.map(FileChannel.MapMode.READ_ONLY, 0, fc.size()));
+		}
+		finally {
+			fc.close();
+		}
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	/**
+	 * Replaces the value of a property the file contains, as the ConfigCache does for journal records;
+	 * properties the file doesn't contain are ignored.
+	 * 
+	 * @param property
+	 * @param value
+	 */
+	
+	public void override(String property, String value) {
+		if(positions.containsKey(property)) {
+			decoded.put(property, value);
+		}
+	}
+	
+	/**
+	 * Decodes every value in the file into a map of property name to value; only for callers that
+	 * really want the whole file.
+	 * 
+	 * @return
+	 */
+	
+	public HashMap<String, String> toMap(){
+		HashMap<String, String> out = new HashMap<String, String>();
+		for(String property : positions.keySet()) {
+			out.put(property, get(property));
+		}
+		return out;
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	public String get(String property) {
+		String out = decoded.get(property);
+		if(out == null) {
+			Long at = positions.get(property);
+			if(at == null) {
+				return null;
+			}
+			out = ConfigTokenizer.decodeValue(buffer, (int)(at >>> 32), (int)(long)at);
+			decoded.put(property, out);
+		}
+		return out;
+	}
+	
+	public boolean contains(String property) {
+		return positions.containsKey(property);
+	}
+	
+	public int size() {
+		return positions.size();
+	}
+	
+	/**
+	 * Returns how many values have been decoded (or replaced) so far, out of size().
+	 * 
+	 * @return
+	 */
+	
+	public int getDecodedCount() {
+		return decoded.size();
+	}
+	
+}
@@ -0,0 +1,185 @@
+package file;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 
+ * ConfigJournal is the alternate way of storing updates to a config file: rather than rewriting the
+ * whole config file for every batch of updates, they are appended as 'name = value</;>' records to a
+ * journal file beside it (config.txt.journal), so the cost of a write depends on the size of the
+ * change and not the size of the file.
+ * 
+ * Reading a property resolves to its latest journal record (the ConfigCache overlays the journal on
+ * the config file); once the journal grows past COMPACT_BYTES it is folded back into the config file
+ * in the background with one atomic rewrite and deleted. The journal is also folded in when journal
+ * mode is turned off and when the program shuts down, so config.txt on its own is a complete, valid
+ * config file for anything else that reads it.
+ * 
+ * As with rewriting, updates to properties that aren't in the config file are not kept: the overlay
+ * only applies to properties the config file has, matching what compaction will write.
+ * 
+ */
+
+public class ConfigJournal {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	public static final String JOURNAL_SUFFIX = ".journal";
+	/** Size the journal may reach before it is folded back into the config file*/
+	private static final long COMPACT_BYTES = 64 * 1024;
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private ConfigFileHandle handle;
+	
+	private File file;
+	
+	private volatile boolean enabled;
+	
+	private boolean compactScheduled;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	ConfigJournal(ConfigFileHandle fileHandle) {
+		handle = fileHandle;
+		file = fileHandle.getPath().resolveSibling(fileHandle.getPath().getFileName() + JOURNAL_SUFFIX).toFile();
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	/**
+	 * Appends the updates to the journal; called by WriteBehind with the file's write lock held.
+	 * Schedules a compaction if the journal has grown past COMPACT_BYTES.
+	 * 
+	 * @param updates
+	 * @return
+	 */
+	
+	boolean append(Map<String, String> updates) {
+		boolean out = ConfigFileWriter.append(file, updates);
+		if(out && file.length() >= COMPACT_BYTES) {
+			scheduleCompact();
+		}
+		return out;
+	}
+	
+	/**
+	 * Folds every record in the journal into the config file as a single atomic rewrite and then
+	 * deletes the journal; returns false (leaving the journal in place) if that failed.
+	 * 
+	 * Safe to repeat after a crash part way through: the journal is only deleted once the rewrite
+	 * is in place, and re-applying its records to the rewritten file changes nothing.
+	 * 
+	 * @return
+	 */
+	
+	public boolean compact() {
+		boolean out = true;
+		handle.lockWrite();
+		try {
+			if(!file.exists()) {
+				return true;
+			}
+			HashMap<String, String> records = read();
+			out = records.isEmpty() || ConfigFileWriter.rewrite(handle.getFile(), records);
+			if(out && !records.isEmpty()) {
+				handle.markWritten();
+			}
+			if(out) {
+				Files.deleteIfExists(file.toPath());
+			}
+		}
+		catch(IOException e) {
+			System.err.println("Failure to compact config journal: " + file.getAbsolutePath());
+			out = false;
+		}
+		finally {
+			handle.getCache().invalidate();
+			handle.unlockWrite();
+		}
+		return out;
+	}
+	
+	/**
+	 * Compacts the journal of every config file that has one; called on shutdown.
+	 * 
+	 */
+	
+	public static void compactAll() {
+		for(ConfigFileHandle cfh : ConfigFileHandle.getAll()) {
+			if(cfh.getJournal().exists()) {
+				cfh.getJournal().compact();
+			}
+		}
+	}
+	
+	private void scheduleCompact() {
+		synchronized(this) {
+			if(compactScheduled) {
+				return;
+			}
+			compactScheduled = true;
+		}
+		handle.getIOQueue().execute(new Runnable() {
+			@Override
+			public void run() {
+				synchronized(ConfigJournal.this) {
+					compactScheduled = false;
+				}
+				compact();
+			}
+		});
+	}
+	
+	/**
+	 * Reads the journal into a map of property name to its latest recorded value.
+	 * 
+	 * @return
+	 * @throws IOException
+	 */
+	
+	HashMap<String, String> read() throws IOException{
+		HashMap<String, String> out = new HashMap<String, String>();
+		ConfigTokenizer ct = new ConfigTokenizer(ByteBuffer.wrap(Files.readAllBytes(file.toPath())));
+		while(ct.next()) {
+			out.put(ct.getName(), ct.getValue());
+		}
+		return out;
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	public boolean isEnabled() {
+		return enabled;
+	}
+	
+	public boolean exists() {
+		return file.exists();
+	}
+	
+	public File getFile() {
+		return file;
+	}
+	
+//---  Setter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Turns journal mode on or off for this config file; turning it off folds any journal back into
+	 * the config file so later rewrites start from complete contents.
+	 * 
+	 * @param journal
+	 */
+	
+	public void setEnabled(boolean journal) {
+		enabled = journal;
+		if(!journal && exists()) {
+			compact();
+		}
+	}
+	
+}
@@ -0,0 +1,350 @@
+package file;
+
+import java.io.ByteArrayOutputStream;
+import java.io.File;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 
+ * ConfigSnapshot is the compact binary form of a config file's properties: a hash index over
+ * length-prefixed UTF-8 names and values, so a file's contents are loaded with a single read and a
+ * property is found without parsing (or even decoding) any of the others.
+ * 
+ * Layout (big-endian ints and longs):
+ *  - MAGIC, FORMAT_VERSION, entry count, slot count (a power of two)
+ *  - the last-modified time and size of the text config file it was made from (0 if none)
+ *  - per slot: the hash of the name in it and the offset of its entry, or EMPTY_SLOT
+ *  - per entry, in the order the properties were given: name length, name, value length, value
+ * 
+ * Names are hashed with String.hashCode, which Java defines exactly, so snapshots can be read by
+ * any program that writes them; lookups use open addressing with linear probing.
+ * 
+ * As well as being how a BinaryConfigStore keeps its files, a snapshot is kept beside a text config
+ * file (config.txt.snap) when snapshots are turned on for it (see FileAccess.setSnapshots), so the
+ * ConfigCache can load the file without parsing it; the text file's recorded time and size say
+ * whether the snapshot still matches it.
+ * 
+ */
+
+public class ConfigSnapshot {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	public static final String SNAPSHOT_SUFFIX = ".snap";
+	
+	private static final int MAGIC = 0x43464753;
+	
+	private static final int FORMAT_VERSION = 2;
+	
+	private static final int HEADER_BYTES = 32;
+	
+	private static final int SLOT_BYTES = 8;
+	
+	private static final int EMPTY_SLOT = -1;
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private ByteBuffer buffer;
+	
+	private int count;
+	
+	private int slots;
+	/** Offset in 'buffer' of the first slot, just past the header*/
+	private int slotsStart;
+	/** Offset in 'buffer' of the first entry, just past the slots*/
+	private int entriesStart;
+	
+	private long sourceModified;
+	
+	private long sourceSize;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	private ConfigSnapshot(ByteBuffer in, int entryCount, int slotCount) {
+		buffer = in;
+		count = entryCount;
+		slots = slotCount;
+		slotsStart = HEADER_BYTES;
+		entriesStart = HEADER_BYTES + slotCount * SLOT_BYTES;
+		sourceModified = in.getLong(16);
+		sourceSize = in.getLong(24);
+	}
+	
+	/**
+	 * Reads a snapshot over the given bytes (from the buffer's position 0), which it keeps rather
+	 * than copying; throws an IOException if they aren't a snapshot this version can read.
+	 * 
+	 * Every entry's lengths and every slot's offset are checked here (see validate), so that get and
+	 * toMap never read outside the bytes or probe without end however the bytes were damaged.
+	 * 
+	 * @param in
+	 * @return
+	 * @throws IOException
+	 */
+	
+	public static ConfigSnapshot wrap(ByteBuffer in) throws IOException{
+		if(in.limit() < HEADER_BYTES || in.getInt(0) != MAGIC || in.getInt(4) != FORMAT_VERSION) {
+			throw new IOException("Not a config snapshot");
+		}
+		int entryCount = in.getInt(8);
+		int slotCount = in.getInt(12);
+		if(entryCount < 0 || slotCount <= entryCount || Integer.bitCount(slotCount) != 1 || HEADER_BYTES + (long)slotCount * SLOT_BYTES > in.limit()) {
+			throw new IOException("Corrupt config snapshot");
+		}
+		ConfigSnapshot out = new ConfigSnapshot(in, entryCount, slotCount);
+		out.validate();
+		return out;
+	}
+	
+	public static ConfigSnapshot read(File f) throws IOException{
+		return wrap(ByteBuffer.wrap(Files.readAllBytes(f.toPath())));
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	/**
+	 * Builds the snapshot of the given properties, in the map's order.
+	 * 
+	 * @param entries
+	 * @return
+	 */
+	
+	public static byte[] encode(Map<String, String> entries) {
+		return encode(entries, 0, 0);
+	}
+	
+	/**
+	 * Builds the snapshot of the given properties, recording that they are the contents of a text
+	 * config file with the given last-modified time and size.
+	 * 
+	 * @param entries
+	 * @param modified
+	 * @param size
+	 * @return
+	 */
+	
+	public static byte[] encode(Map<String, String> entries, long modified, long size) {
+		int slotCount = Integer.highestOneBit(Math.max(1, entries.size()) * 2) * 2;
+		int mask = slotCount - 1;
+		int[] table = new int[slotCount * 2];
+		Arrays.fill(table, EMPTY_SLOT);
+		ByteArrayOutputStream body = new ByteArrayOutputStream();
+		int offset = HEADER_BYTES + slotCount * SLOT_BYTES;
+		for(Map.Entry<String, String> e : entries.entrySet()) {
+			byte[] name = e.getKey().getBytes(StandardCharsets.UTF_8);
+			byte[] value = e.getValue().getBytes(StandardCharsets.UTF_8);
+			int hash = e.getKey().hashCode();
+			int slot = spread(hash) & mask;
+			while(table[slot * 2 + 1] != EMPTY_SLOT) {
+				slot = (slot + 1) & mask;
+			}
+			table[slot * 2] = hash;
+			table[slot * 2 + 1] = offset;
+			writeInt(body, name.length);
+			body.write(name, 0, name.length);
+			writeInt(body, value.length);
+			body.write(value, 0, value.length);
+			offset += 8 + name.length + value.length;
+		}
+		ByteBuffer out = ByteBuffer.allocate(offset);
+		out.putInt(MAGIC).putInt(FORMAT_VERSION).putInt(entries.size()).putInt(slotCount);
+		out.putLong(modified).putLong(size);
+		for(int i : table) {
+			out.putInt(i);
+		}
+		out.put(body.toByteArray());
+		return out.array();
+	}
+	
+	/**
+	 * Writes the snapshot of a text config file's properties to the file beside it (see getFile)
+	 * the same way a config file is rewritten: a uniquely named temporary file, forced to disk as
+	 * the durability policy calls for, renamed into place (see ConfigFileWriter.writeTemp).
+	 * 
+	 * @param text
+	 * @param entries
+	 * @param modified
+	 * @param size
+	 * @throws IOException
+	 */
+	
+	static void write(File text, Map<String, String> entries, long modified, long size) throws IOException{
+		File target = getFile(text);
+		ConfigFileWriter.install(ConfigFileWriter.writeTemp(target, encode(entries, modified, size)), target);
+	}
+	
+	/**
+	 * Returns the value of the property, or null if the snapshot doesn't have it.
+	 * 
+	 * @param property
+	 * @return
+	 */
+	
+	public String get(String property) {
+		int hash = property.hashCode();
+		int mask = slots - 1;
+		byte[] name = null;
+		int slot = spread(hash) & mask;
+		for(int probes = 0; probes < slots; probes++, slot = (slot + 1) & mask) {
+			int at = slotsStart + slot * SLOT_BYTES;
+			int offset = buffer.getInt(at + 4);
+			if(offset == EMPTY_SLOT) {
+				return null;
+			}
+			if(buffer.getInt(at) != hash) {
+				continue;
+			}
+			if(name == null) {
+				name = property.getBytes(StandardCharsets.UTF_8);
+			}
+			if(matches(offset, name)) {
+				int valueAt = offset + 4 + name.length;
+				return decode(valueAt + 4, buffer.getInt(valueAt));
+			}
+		}
+		return null;
+	}
+	
+	/**
+	 * Decodes every property in the snapshot, in the order they were encoded.
+	 * 
+	 * @return
+	 */
+	
+	public LinkedHashMap<String, String> toMap(){
+		LinkedHashMap<String, String> out = new LinkedHashMap<String, String>();
+		int at = entriesStart;
+		for(int i = 0; i < count; i++) {
+			int nameLength = buffer.getInt(at);
+			String name = decode(at + 4, nameLength);
+			at += 4 + nameLength;
+			int valueLength = buffer.getInt(at);
+			out.put(name, decode(at + 4, valueLength));
+			at += 4 + valueLength;
+		}
+		return out;
+	}
+	
+	/**
+	 * Checks that the entries run from the end of the slots to the end of the bytes, each length
+	 * within them, and that every filled slot holds the offset of one of those entries; as there
+	 * are then fewer filled slots than slots, every lookup reaches an empty slot.
+	 * 
+	 * @throws IOException
+	 */
+	
+	private void validate() throws IOException{
+		int[] starts = new int[count];
+		long at = entriesStart;
+		for(int i = 0; i < count; i++) {
+			starts[i] = (int)at;
+			at = skipField(at);
+			at = skipField(at);
+		}
+		if(at != buffer.limit()) {
+			throw new IOException("Corrupt config snapshot");
+		}
+		int filled = 0;
+		for(int slot = 0; slot < slots; slot++) {
+			int offset = buffer.getInt(slotsStart + slot * SLOT_BYTES + 4);
+			if(offset == EMPTY_SLOT) {
+				continue;
+			}
+			if(Arrays.binarySearch(starts, offset) < 0) {
+				throw new IOException("Corrupt config snapshot");
+			}
+			filled++;
+		}
+		if(filled != count) {
+			throw new IOException("Corrupt config snapshot");
+		}
+	}
+	
+	/**
+	 * Returns the offset just past the length-prefixed field at the given offset, throwing an
+	 * IOException if its length is negative or runs past the end of the bytes.
+	 * 
+	 * @param at
+	 * @return
+	 * @throws IOException
+	 */
+	
+	private long skipField(long at) throws IOException{
+		if(at + 4 > buffer.limit()) {
+			throw new IOException("Corrupt config snapshot");
+		}
+		int length = buffer.getInt((int)at);
+		if(length < 0 || at + 4 + length > buffer.limit()) {
+			throw new IOException("Corrupt config snapshot");
+		}
+		return at + 4 + length;
+	}
+	
+	private boolean matches(int offset, byte[] name) {
+		if(buffer.getInt(offset) != name.length) {
+			return false;
+		}
+		for(int i = 0; i < name.length; i++) {
+			if(buffer.get(offset + 4 + i) != name[i]) {
+				return false;
+			}
+		}
+		return true;
+	}
+	
+	private String decode(int at, int length) {
+		byte[] out = new byte[length];
+		ByteBuffer view = buffer.duplicate();
+		view.position(at);
+		view.get(out);
+		return new String(out, StandardCharsets.UTF_8);
+	}
+	
+	private static int spread(int hash) {
+		return hash ^ (hash >>> 16);
+	}
+	
+	private static void writeInt(ByteArrayOutputStream out, int value) {
+		out.write(value >>> 24);
+		out.write(value >>> 16);
+		out.write(value >>> 8);
+		out.write(value);
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Returns the snapshot file kept beside the given text config file.
+	 * 
+	 * @param text
+	 * @return
+	 */
+	
+	public static File getFile(File text) {
+		return new File(text.getPath() + SNAPSHOT_SUFFIX);
+	}
+	
+	/**
+	 * Returns whether this snapshot was made from a text config file with the given last-modified
+	 * time and size, i.e. whether it still holds that file's contents.
+	 * 
+	 * @param modified
+	 * @param size
+	 * @return
+	 */
+	
+	public boolean isOf(long modified, long size) {
+		return sourceModified == modified && sourceSize == size && (modified != 0 || size != 0);
+	}
+	
+	public int size() {
+		return count;
+	}
+	
+}
@@ -0,0 +1,134 @@
+package file;
+
+import java.io.IOException;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 
+ * ConfigStore is where a config file's properties are actually kept; every read and write made
+ * through a FileAccess (and so through every SpecificFileAccessor and SpecificPropertyAccessor) reaches
+ * its file's contents through the ConfigFileHandle's ConfigStore, while write-behind, transactions,
+ * staging, versions and listeners all sit above it and work the same whatever the store is.
+ * 
+ * Implementations:
+ *  - TextConfigStore: the SVI text config file on disk (the default), with its journal and mapped modes
+ *  - MemoryConfigStore: maps held only in memory, nothing touches the disk
+ *  - BinaryConfigStore: a ConfigSnapshot file on disk in place of the text file
+ * 
+ * A store is chosen per FileAccess or ConfigMenu with setConfigStore, and is handed on to every file
+ * it gives out accessors for afterwards, so the same pages can be run against any of them.
+ * 
+ * Writes (write, prepare and ensure) are only called with the file's write lock held, reads with
+ * no lock held; a store that reads from somewhere other programs can write takes the read lock itself.
+ * Like the text config file, a write only replaces properties the file already has: only ensure
+ * adds properties, and only it creates a file that doesn't exist.
+ * 
+ */
+
+public interface ConfigStore {
+	
+	/**
+	 * Returns the stored value of the property, or null if the file doesn't have it (or can't be read).
+	 * 
+	 * @param file
+	 * @param property
+	 * @return
+	 */
+	
+	public abstract String get(ConfigFileHandle file, String property);
+	
+	/**
+	 * Returns the stored values of every listed property the file has, reading it only once.
+	 * 
+	 * @param file
+	 * @param properties
+	 * @return
+	 */
+	
+	public abstract HashMap<String, String> get(ConfigFileHandle file, Iterable<String> properties);
+	
+	/**
+	 * Returns every property the file has with its stored value, or null if the file can't be read.
+	 * 
+	 * @param file
+	 * @return
+	 */
+	
+	public abstract Map<String, String> getAll(ConfigFileHandle file);
+	
+	/**
+	 * Checks for changes made to the file from outside this program, taking them in (and bumping the
+	 * file's version) if there are any; returns false if the file has never been readable.
+	 * 
+	 * @param file
+	 * @return
+	 */
+	
+	public abstract boolean refresh(ConfigFileHandle file);
+	
+	/**
+	 * Called after a write to the file so the next read sees it; must not wait on any lock.
+	 * 
+	 * @param file
+	 */
+	
+	public abstract void invalidate(ConfigFileHandle file);
+	
+	public abstract boolean exists(ConfigFileHandle file);
+	
+	/**
+	 * Writes the updates to the file, returning false (with the file unchanged) if they couldn't be.
+	 * 
+	 * @param file
+	 * @param updates
+	 * @return
+	 */
+	
+	public abstract boolean write(ConfigFileHandle file, Map<String, String> updates);
+	
+	/**
+	 * First half of a write made by a ConfigTransaction: gets everything that can fail out of the
+	 * way (such as writing a temporary file) without changing the file, so that every file in the
+	 * transaction is known to be writable before any of them is changed.
+	 * 
+	 * @param file
+	 * @param updates
+	 * @return
+	 * @throws IOException
+	 */
+	
+	public abstract Prepared prepare(ConfigFileHandle file, Map<String, String> updates) throws IOException;
+	
+	/**
+	 * Makes sure the file exists (creating it, with the description where the store keeps one, if
+	 * not) and has every property in defaults, as ConfigFileWriter.ensureEntries does for the text
+	 * file: updates replace their properties' values, missing defaults are added and, with replaceNull,
+	 * defaults replace 'null' values. Returns every property written mapped to its new value.
+	 * 
+	 * @param file
+	 * @param description
+	 * @param defaults
+	 * @param updates
+	 * @param replaceNull
+	 * @return
+	 * @throws IOException
+	 */
+	
+	public abstract HashMap<String, String> ensure(ConfigFileHandle file, String description, Map<String, String> defaults, Map<String, String> updates, boolean replaceNull) throws IOException;
+	
+	/**
+	 * 
+	 * A write made ready by prepare; exactly one of install or discard is called on it.
+	 * 
+	 */
+	
+	public interface Prepared {
+		
+		public abstract void install() throws IOException;
+		
+		public abstract void discard();
+	
+	}
+	
+}
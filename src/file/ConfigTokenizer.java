@@ -0,0 +1,252 @@
+package file;
+
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+
+import filemeta.config.ConfigFileParser;
+
+/**
+ * 
+ * ConfigTokenizer walks the raw bytes of a config file in a single pass and picks out each
+ * 'name = value</;>' entry, skipping '#####' comment lines, without building a String for each
+ * line or using any regular expressions.
+ * 
+ * Works directly on UTF-8 bytes: the equals, end-of-value and comment symbols are all plain ASCII,
+ * which never appears inside a multi-byte UTF-8 character, so they can be matched byte for byte and
+ * only the names/values actually asked for are decoded into Strings.
+ * 
+ * Follows the same rules as the SVI ConfigFileParser: a line containing the comment symbol is skipped,
+ * the name is everything before the first ' = ', and the value runs until the end symbol, possibly
+ * over several lines (which are joined without their line breaks); anything after the end symbol on
+ * its line is ignored.
+ * 
+ * Use:
+ *  - ConfigTokenizer ct = new ConfigTokenizer(buffer)
+ *  - while(ct.next()) { ct.getName(), ct.getValue(), ct.getEntryStart(), ... }
+ * 
+ */
+
+public class ConfigTokenizer {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	private static final byte[] EQUAL_SYMBOL = ConfigFileParser.ENTRY_EQUAL_SYMBOL.getBytes(StandardCharsets.UTF_8);
+	
+	private static final byte[] VALUE_END_SYMBOL = ConfigFileParser.ENTRY_VALUE_END_SYMBOL.getBytes(StandardCharsets.UTF_8);
+	
+	private static final byte[] COMMENT_SYMBOL = ConfigFileParser.COMMENT_SYMBOL.getBytes(StandardCharsets.UTF_8);
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private ByteBuffer buffer;
+	/** Position of the first byte not yet tokenized*/
+	private int position;
+	
+	private int limit;
+	
+	private int entryStart;
+	/** Position just past the line break that ends the current entry (or the end of the buffer)*/
+	private int entryEnd;
+	
+	private int nameEnd;
+	
+	private int valueStart;
+	
+	private int valueEnd;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	/**
+	 * Tokenizes the bytes between the buffer's position and limit; the buffer itself is only read
+	 * by absolute index, so its position is left untouched.
+	 * 
+	 * @param in
+	 */
+	
+	public ConfigTokenizer(ByteBuffer in) {
+		buffer = in;
+		position = in.position();
+		limit = in.limit();
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	/**
+	 * Advances to the next entry in the buffer, returning false once there are none left.
+	 * 
+	 * @return
+	 */
+	
+	public boolean next() {
+		while(position < limit) {
+			int lineStart = position;
+			int lineEnd = lineEnd(lineStart);
+			position = lineEnd < limit ? lineEnd + 1 : limit;
+			if(indexOf(COMMENT_SYMBOL, lineStart, lineEnd) != -1) {
+				continue;
+			}
+			int split = indexOf(EQUAL_SYMBOL, lineStart, lineEnd);
+			if(split == -1) {
+				continue;
+			}
+			entryStart = lineStart;
+			nameEnd = split;
+			valueStart = split + EQUAL_SYMBOL.length;
+			int end = indexOf(VALUE_END_SYMBOL, valueStart, limit);
+			if(end == -1) {
+				valueEnd = limit;
+				position = limit;
+			}
+			else {
+				valueEnd = end;
+				int last = lineEnd(end);
+				position = last < limit ? last + 1 : limit;
+			}
+			entryEnd = position;
+			return true;
+		}
+		return false;
+	}
+	
+	/**
+	 * Convenience function that tokenizes the whole buffer into a map of property name to value,
+	 * keeping the first occurrence of any name that appears more than once.
+	 * 
+	 * @param in
+	 * @return
+	 */
+	
+	public static HashMap<String, String> parse(ByteBuffer in) {
+		HashMap<String, String> out = new HashMap<String, String>();
+		ConfigTokenizer ct = new ConfigTokenizer(in);
+		while(ct.next()) {
+			String name = ct.getName();
+			if(!out.containsKey(name)) {
+				out.put(name, ct.getValue());
+			}
+		}
+		return out;
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	public String getName() {
+		return decode(buffer, entryStart, nameEnd);
+	}
+	
+	/**
+	 * Returns the current entry's value with any line breaks inside it removed, matching how
+	 * the SVI ConfigFileParser joins a value that spans several lines.
+	 * 
+	 * @return
+	 */
+	
+	public String getValue() {
+		return decodeValue(buffer, valueStart, valueEnd);
+	}
+	
+	/**
+	 * Decodes the value found between the two positions of the buffer (as given by getValueStart and
+	 * getValueEnd) the same way getValue does; lets a value be decoded long after it was tokenized.
+	 * 
+	 * @param buffer
+	 * @param from
+	 * @param to
+	 * @return
+	 */
+	
+	public static String decodeValue(ByteBuffer buffer, int from, int to) {
+		for(int i = from; i < to; i++) {
+			byte b = buffer.get(i);
+			if(b == '\n' || b == '\r') {
+				return decodeJoined(buffer, from, to);
+			}
+		}
+		return decode(buffer, from, to);
+	}
+	
+	public int getEntryStart() {
+		return entryStart;
+	}
+	
+	public int getEntryEnd() {
+		return entryEnd;
+	}
+	
+	public int getNameEnd() {
+		return nameEnd;
+	}
+	
+	public int getValueStart() {
+		return valueStart;
+	}
+	
+	public int getValueEnd() {
+		return valueEnd;
+	}
+	
+//---  Support Methods   ----------------------------------------------------------------------
+	
+	/**
+	 * Returns the index of the '\n' ending the line that 'from' is in, or the limit if the line
+	 * runs to the end of the buffer.
+	 * 
+	 * @param from
+	 * @return
+	 */
+	
+	private int lineEnd(int from) {
+		for(int i = from; i < limit; i++) {
+			if(buffer.get(i) == '\n') {
+				return i;
+			}
+		}
+		return limit;
+	}
+	
+	private int indexOf(byte[] symbol, int from, int to) {
+		int last = to - symbol.length;
+		byte first = symbol[0];
+		for(int i = from; i <= last; i++) {
+			if(buffer.get(i) != first) {
+				continue;
+			}
+			int j = 1;
+			while(j < symbol.length && buffer.get(i + j) == symbol[j]) {
+				j++;
+			}
+			if(j == symbol.length) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	private static String decode(ByteBuffer buffer, int from, int to) {
+		if(to > from && buffer.get(to - 1) == '\r') {
+			to--;
+		}
+		if(buffer.hasArray()) {
+			return new String(buffer.array(), buffer.arrayOffset() + from, to - from, StandardCharsets.UTF_8);
+		}
+		byte[] use = new byte[to - from];
+		for(int i = 0; i < use.length; i++) {
+			use[i] = buffer.get(from + i);
+		}
+		return new String(use, StandardCharsets.UTF_8);
+	}
+	
+	private static String decodeJoined(ByteBuffer buffer, int from, int to) {
+		byte[] use = new byte[to - from];
+		int size = 0;
+		for(int i = from; i < to; i++) {
+			byte b = buffer.get(i);
+			if(b != '\n' && b != '\r') {
+				use[size++] = b;
+			}
+		}
+		return new String(use, 0, size, StandardCharsets.UTF_8);
+	}
+	
+}
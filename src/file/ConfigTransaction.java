@@ -0,0 +1,362 @@
+package file;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+
+/**
+ * 
+ * ConfigTransaction groups property writes, across any number of config files, so that they are
+ * written together: each file is rewritten once with all of its changes, and no reader in this
+ * program sees some of the changes without the rest.
+ * 
+ * A transaction belongs to the thread that began it; while it is open, every assignData (and
+ * assignDataAsync) made on that thread through any FileAccess is recorded in the transaction instead
+ * of being written, and accessData/findData (and PropertyAccess reads) on that thread see the
+ * recorded values. This is how ConfigPage runs all the Behaviors for a click in one transaction
+ * without the Behaviors knowing; a Behavior that begins a transaction of its own joins that one.
+ * 
+ * Once committed, the changes are what every thread reads for the files involved (they are held in
+ * each file's WriteBehind, see WriteBehind.hold) until they have been written.
+ * 
+ * Use:
+ *  - ConfigTransaction ct = ConfigTransaction.begin() (or FileAccess/ConfigMenu.beginTransaction())
+ *  - ct.set(folder, file, property, value), or assignData calls on this thread
+ *  - ct.commit() (or commitAsync() to do the writing on the config I/O executor), or ct.rollback()
+ * 
+ * Committing locks every file involved (in a fixed order, so two commits can't deadlock), has every
+ * file's ConfigStore prepare its write (for a text file, writing its new contents to its temporary
+ * file), and only once all of those have succeeded installs them one after another (renaming each
+ * over its config file); if any can't be prepared, none are replaced. Installing can itself fail
+ * for a file after others have been replaced (a rename refused by the filesystem); the commit then
+ * reports false, and the changes to the files that failed are left pending to be written again.
+ * 
+ */
+
+public class ConfigTransaction {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	private static final ThreadLocal<ConfigTransaction> current = new ThreadLocal<ConfigTransaction>();
+	/** Runs commitAsync calls one at a time, in the order they were made*/
+	private static final Executor commitQueue = ConfigIO.newSerialQueue();
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private LinkedHashMap<ConfigFileHandle, LinkedHashMap<String, String>> changes;
+	
+	private CompletableFuture<Boolean> result;
+	
+	private boolean open;
+	/** Number of begin calls that joined this transaction, each ended by a commit or rollback of its own*/
+	private int joined;
+	/** Set when a joined begin was rolled back, so the outermost commit rolls back instead*/
+	private boolean rollbackOnly;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	private ConfigTransaction() {
+		changes = new LinkedHashMap<ConfigFileHandle, LinkedHashMap<String, String>>();
+		result = new CompletableFuture<Boolean>();
+		open = true;
+	}
+	
+	/**
+	 * Begins a transaction on the calling thread; if one is already open on this thread, joins it
+	 * instead and returns it. Committing a joined transaction leaves its changes to be written by
+	 * the outermost commit, and rolling it back rolls back the whole transaction when that commits.
+	 * 
+	 * @return
+	 */
+	
+	public static ConfigTransaction begin() {
+		ConfigTransaction open = current.get();
+		if(open != null) {
+			synchronized(open) {
+				open.joined++;
+			}
+			return open;
+		}
+		ConfigTransaction out = new ConfigTransaction();
+		current.set(out);
+		return out;
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	public void set(String folderPath, String configName, String property, String value) {
+		set(ConfigFileHandle.get(folderPath, configName), property, value);
+	}
+	
+	synchronized void set(ConfigFileHandle file, String property, String value) {
+		if(!open) {
+			throw new IllegalStateException("Config transaction has already been committed or rolled back");
+		}
+		LinkedHashMap<String, String> forFile = changes.get(file);
+		if(forFile == null) {
+			forFile = new LinkedHashMap<String, String>();
+			changes.put(file, forFile);
+		}
+		forFile.remove(property);
+		forFile.put(property, value);
+	}
+	
+	/**
+	 * Writes every change in the transaction, blocking until they are all on disk; returns false if
+	 * they couldn't be (see the class description for what was written then). For a joined begin,
+	 * returns true straight away and leaves the writing to the outermost commit.
+	 * 
+	 * @return
+	 */
+	
+	public boolean commit() {
+		if(leave()) {
+			return true;
+		}
+		if(!close()) {
+			return false;
+		}
+		boolean out;
+		try {
+			out = apply();
+		}
+		catch(RuntimeException e) {
+			result.completeExceptionally(e);
+			throw e;
+		}
+		result.complete(out);
+		return out;
+	}
+	
+	/**
+	 * Closes the transaction and writes its changes on the config I/O executor, returning a future
+	 * that completes with whether they were written (exceptionally, if writing them threw). Commits
+	 * made this way are written in the order they were made.
+	 * 
+	 * @return
+	 */
+	
+	public CompletableFuture<Boolean> commitAsync() {
+		if(leave() || !close()) {
+			return result;
+		}
+		commitQueue.execute(new Runnable() {
+			@Override
+			public void run() {
+				try {
+					result.complete(apply());
+				}
+				catch(RuntimeException e) {
+					result.completeExceptionally(e);
+				}
+			}
+		});
+		return result;
+	}
+	
+	/**
+	 * Drops every change in the transaction; for a joined begin, the whole transaction is rolled back
+	 * when the outermost commit is made. Does nothing once the transaction has been closed.
+	 * 
+	 */
+	
+	public void rollback() {
+		synchronized(this) {
+			if(!open) {
+				return;
+			}
+			rollbackOnly = true;
+		}
+		if(!leave()) {
+			close();
+		}
+	}
+	
+	/**
+	 * Ends a joined begin, if this commit or rollback belongs to one; returns whether it did.
+	 * 
+	 * @return
+	 */
+	
+	private synchronized boolean leave() {
+		if(joined == 0) {
+			return false;
+		}
+		joined--;
+		return true;
+	}
+	
+	/**
+	 * Closes the transaction to further changes and takes it off its thread; returns true if its
+	 * changes are to be written, having held them in each file's WriteBehind for readers until they
+	 * are, or false if it has been rolled back (the result is then completed with false).
+	 * 
+	 * @return
+	 */
+	
+	private boolean close() {
+		boolean write;
+		synchronized(this) {
+			if(!open) {
+				throw new IllegalStateException("Config transaction has already been committed or rolled back");
+			}
+			open = false;
+			write = !rollbackOnly;
+		}
+		if(current.get() == this) {
+			current.remove();
+		}
+		if(!write) {
+			synchronized(this) {
+				changes.clear();
+			}
+			result.complete(false);
+			return false;
+		}
+		for(ConfigFileHandle cfh : getFiles()) {
+			cfh.getWriter().hold(getChanges(cfh));
+		}
+		return true;
+	}
+	
+	/**
+	 * Writes the held changes, then stops holding them (whether or not they were written).
+	 * 
+	 * @return
+	 */
+	
+	private boolean apply() {
+		ArrayList<ConfigFileHandle> files = getFiles();
+		try {
+			return write(files);
+		}
+		finally {
+			for(ConfigFileHandle cfh : files) {
+				cfh.getWriter().settle(getChanges(cfh));
+			}
+		}
+	}
+	
+	private boolean write(ArrayList<ConfigFileHandle> files) {
+		if(files.isEmpty()) {
+			return true;
+		}
+		Collections.sort(files, new Comparator<ConfigFileHandle>() {
+			@Override
+			public int compare(ConfigFileHandle a, ConfigFileHandle b) {
+				return a.getPath().compareTo(b.getPath());
+			}
+		});
+		HashMap<ConfigFileHandle, Map<String, String>> taken = new HashMap<ConfigFileHandle, Map<String, String>>();
+		HashMap<ConfigFileHandle, ConfigStore.Prepared> prepared = new HashMap<ConfigFileHandle, ConfigStore.Prepared>();
+		HashMap<ConfigFileHandle, HashMap<String, String>> installed = new HashMap<ConfigFileHandle, HashMap<String, String>>();
+		boolean out = true;
+		for(ConfigFileHandle cfh : files) {
+			cfh.lockWrite();
+		}
+		try {
+			HashMap<ConfigFileHandle, LinkedHashMap<String, String>> batches = new HashMap<ConfigFileHandle, LinkedHashMap<String, String>>();
+			HashMap<ConfigFileHandle, HashMap<String, String>> held = new HashMap<ConfigFileHandle, HashMap<String, String>>();
+			for(ConfigFileHandle cfh : files) {
+				Map<String, String> pending = cfh.getWriter().takePending();
+				taken.put(cfh, pending);
+				LinkedHashMap<String, String> batch = new LinkedHashMap<String, String>(pending);
+				held.put(cfh, cfh.getWriter().getHeld(getChanges(cfh)));
+				batch.putAll(held.get(cfh));
+				batches.put(cfh, batch);
+			}
+			try {
+				for(ConfigFileHandle cfh : files) {
+					prepared.put(cfh, cfh.getStore().prepare(cfh, batches.get(cfh)));
+				}
+			}
+			catch(IOException e) {
+				System.err.println("Failure to prepare config transaction, no files were changed: " + e.getMessage());
+				for(ConfigStore.Prepared p : prepared.values()) {
+					p.discard();
+				}
+				for(ConfigFileHandle cfh : files) {
+					cfh.getWriter().requeue(taken.get(cfh));
+				}
+				return false;
+			}
+			for(ConfigFileHandle cfh : files) {
+				try {
+					prepared.get(cfh).install();
+					cfh.markWritten();
+					installed.put(cfh, held.get(cfh));
+				}
+				catch(IOException e) {
+					System.err.println("Failure to commit config transaction to file: " + cfh.getPath());
+					cfh.getWriter().requeue(batches.get(cfh));
+					out = false;
+				}
+			}
+		}
+		finally {
+			for(int i = files.size() - 1; i >= 0; i--) {
+				ConfigFileHandle cfh = files.get(i);
+				cfh.getStore().invalidate(cfh);
+				cfh.bumpVersion();
+				cfh.unlockWrite();
+			}
+		}
+		for(Map.Entry<ConfigFileHandle, HashMap<String, String>> e : installed.entrySet()) {
+			ConfigWatcher.publish(e.getKey(), e.getValue());
+		}
+		return out;
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Returns the transaction open on the calling thread, or null if there isn't one.
+	 * 
+	 * @return
+	 */
+	
+	public static ConfigTransaction current() {
+		return current.get();
+	}
+	
+	/**
+	 * Returns the value this transaction has recorded for the property of the given file, or null
+	 * if it hasn't recorded one.
+	 * 
+	 * @param file
+	 * @param property
+	 * @return
+	 */
+	
+	synchronized String lookup(ConfigFileHandle file, String property) {
+		LinkedHashMap<String, String> forFile = changes.get(file);
+		return forFile == null ? null : forFile.get(property);
+	}
+	
+	private synchronized ArrayList<ConfigFileHandle> getFiles(){
+		return new ArrayList<ConfigFileHandle>(changes.keySet());
+	}
+	
+	synchronized HashMap<String, String> getChanges(ConfigFileHandle file){
+		LinkedHashMap<String, String> forFile = changes.get(file);
+		return forFile == null ? new HashMap<String, String>() : new HashMap<String, String>(forFile);
+	}
+	
+	/**
+	 * Returns a future that completes with whether this transaction's changes were written, once
+	 * it has been committed (or with false if it is rolled back).
+	 * 
+	 * @return
+	 */
+	
+	public CompletableFuture<Boolean> getResult(){
+		return result;
+	}
+	
+}
@@ -0,0 +1,225 @@
+package file;
+
+import java.io.IOException;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * 
+ * ConfigTree is a declaration of a whole tree of config folders, the config files in them and the
+ * properties (with default values) each file should have, which apply() then makes true on disk in
+ * one go: files that don't exist are created, files that are missing some of their properties have
+ * those appended, and files that already have everything are only read.
+ * 
+ * Every file is handled as its own task on a ForkJoinPool, so a tree of hundreds of files costs
+ * about as long as its slowest few rather than the sum of them all; each file is read once and
+ * written at most once (atomically, see ConfigFileWriter), under its ConfigFileHandle's write lock,
+ * through the file's ConfigStore.
+ * 
+ * Unlike FileAccess.assignProperties (the SVI Config's softWriteConfig), existing files that are
+ * missing declared properties are patched rather than left alone.
+ * 
+ * Use:
+ *  - ConfigTree ct = new ConfigTree("./config_root")
+ *  - ct.addFile("folder/sub_folder", "config.txt", "description")
+ *  - ct.addFileEntry("folder/sub_folder", "config.txt", "property", "default value")
+ *  - ct.apply() (or ConfigMenu.establishConfigTree(ct))
+ * 
+ */
+
+public class ConfigTree {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	private static final String DEFAULT_VALUE = "null";
+	
+	private static final String DESCRIPTION_DEFAULT = "Default config file description";
+	/** Files are mostly waiting on the disk, so more of them are worked on at once than there are cores*/
+	private static final int PARALLELISM = Math.max(4, Runtime.getRuntime().availableProcessors() * 2);
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private String root;
+	/** Declared files by folder and file name ('folder/config.txt'), in the order declared*/
+	private LinkedHashMap<String, Declared> files;
+	
+	private AtomicInteger created;
+	
+	private AtomicInteger patched;
+	
+	private AtomicInteger unchanged;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	/**
+	 * Folders given to the other methods are relative to this root folder ("" for the root itself).
+	 * 
+	 * @param rootPath
+	 */
+	
+	public ConfigTree(String rootPath) {
+		root = rootPath;
+		files = new LinkedHashMap<String, Declared>();
+		created = new AtomicInteger();
+		patched = new AtomicInteger();
+		unchanged = new AtomicInteger();
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	public void addFile(String folder, String fileName, String description) {
+		declare(folder, fileName).description = description;
+	}
+	
+	public void addFileEntry(String folder, String fileName, String property, String defaultValue) {
+		declare(folder, fileName).defaults.put(property, defaultValue);
+	}
+	
+	/**
+	 * Declares each property for the file with the default value 'null', as
+	 * ConfigMenu.establishConfigProperties does.
+	 * 
+	 * @param folder
+	 * @param fileName
+	 * @param properties
+	 */
+	
+	public void addFileEntries(String folder, String fileName, String ... properties) {
+		Declared d = declare(folder, fileName);
+		for(String s : properties) {
+			d.defaults.put(s, DEFAULT_VALUE);
+		}
+	}
+	
+	/**
+	 * Creates or patches every declared file that differs from its declaration, in parallel, and
+	 * returns whether all of them could be; getCreatedCount, getPatchedCount and getUnchangedCount
+	 * then report what was done.
+	 * 
+	 * @return
+	 */
+	
+	public boolean apply() {
+		created.set(0);
+		patched.set(0);
+		unchanged.set(0);
+		ForkJoinPool pool = new ForkJoinPool(PARALLELISM);
+		try {
+			ArrayList<ForkJoinTask<Boolean>> tasks = new ArrayList<ForkJoinTask<Boolean>>();
+			for(final Declared d : files.values()) {
+				tasks.add(pool.submit(new Callable<Boolean>() {
+					@Override
+					public Boolean call() {
+						return applyFile(d);
+					}
+				}));
+			}
+			boolean out = true;
+			for(ForkJoinTask<Boolean> task : tasks) {
+				out = task.join() && out;
+			}
+			return out;
+		}
+		finally {
+			pool.shutdown();
+		}
+	}
+	
+	private boolean applyFile(Declared d) {
+		ConfigFileHandle cfh = ConfigFileHandle.get(Paths.get(root, d.folder).toString(), d.name);
+		ConfigStore store = cfh.getStore();
+		cfh.lockWrite();
+		try {
+			boolean exists = store.exists(cfh);
+			int added = store.ensure(cfh, d.description, d.defaults, new HashMap<String, String>(), false).size();
+			if(!exists) {
+				created.incrementAndGet();
+			}
+			else if(added > 0) {
+				patched.incrementAndGet();
+			}
+			else {
+				unchanged.incrementAndGet();
+				return true;
+			}
+			cfh.markWritten();
+			store.invalidate(cfh);
+			cfh.bumpVersion();
+			return true;
+		}
+		catch(IOException e) {
+			System.err.println("Failure to create or patch config file: " + cfh.getPath());
+			return false;
+		}
+		finally {
+			cfh.unlockWrite();
+		}
+	}
+	
+	private Declared declare(String folder, String fileName) {
+		String key = folder + "/" + fileName;
+		Declared out = files.get(key);
+		if(out == null) {
+			out = new Declared(folder, fileName);
+			files.put(key, out);
+		}
+		return out;
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Getter methods reporting, for the last apply(), how many files were created, how many existing
+	 * files had missing properties added, and how many already matched their declaration.
+	 * 
+	 * @return
+	 */
+	
+	public int getCreatedCount() {
+		return created.get();
+	}
+	
+	public int getPatchedCount() {
+		return patched.get();
+	}
+	
+	public int getUnchangedCount() {
+		return unchanged.get();
+	}
+	
+	public int getFileCount() {
+		return files.size();
+	}
+	
+	public String getRootPath() {
+		return root;
+	}
+	
+//---  Mechanics   ----------------------------------------------------------------------------
+	
+	private static class Declared {
+		
+		private String folder;
+		
+		private String name;
+		
+		private String description;
+		/** Property name to its default value, in the order declared*/
+		private LinkedHashMap<String, String> defaults;
+		
+		private Declared(String folderName, String fileName) {
+			folder = folderName;
+			name = fileName;
+			description = DESCRIPTION_DEFAULT;
+			defaults = new LinkedHashMap<String, String>();
+		}
+	
+	}
+	
+}
@@ -0,0 +1,352 @@
+package file;
+
+import java.io.IOException;
+import java.nio.file.ClosedWatchServiceException;
+import java.nio.file.FileSystems;
+import java.nio.file.Path;
+import java.nio.file.StandardWatchEventKinds;
+import java.nio.file.WatchEvent;
+import java.nio.file.WatchKey;
+import java.nio.file.WatchService;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 
+ * ConfigWatcher pushes property changes out to PropertyListeners so that Features bound to a config
+ * property don't have to keep re-reading it to notice when it changes.
+ * 
+ * Changes made through FileAccess are published the moment they are made; changes made to the file
+ * by anything else (a text editor, another program) are noticed by a WatchService over the folders
+ * of every watched file. Bursts of file events are debounced, each changed file is re-parsed once
+ * and only the properties whose values actually changed are pushed to their listeners.
+ * 
+ * ChangeSetListeners are told about each group of changes at once (a write, a committed transaction,
+ * an outside edit) along with the file's version; while any are subscribed the watcher keeps a copy
+ * of the whole file's values to find every property an outside edit changed.
+ * 
+ * Where the platform's WatchService is slow or unavailable, watched files are also re-checked
+ * every POLL_INTERVAL_MILLIS (only a size/modified-time check unless the file really changed), which
+ * bounds how long an outside edit can take to show up.
+ * 
+ */
+
+public class ConfigWatcher {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	/** How long the file system must be quiet after an event before changed files are re-read*/
+	private static final int DEBOUNCE_MILLIS = 50;
+	/** Longest a constantly busy folder can hold off re-reading its changed files*/
+	private static final int DEBOUNCE_LIMIT_MILLIS = 500;
+	/** Longest an outside change can go unnoticed if the WatchService misses it*/
+	private static final int POLL_INTERVAL_MILLIS = 1000;
+	
+	private static final HashMap<WatchKey, Path> directories = new HashMap<WatchKey, Path>();
+	
+	private static WatchService service;
+	
+	private static Thread watchThread;
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private ConfigFileHandle handle;
+	
+	private HashMap<String, ArrayList<PropertyListener>> listeners;
+	/** Last value pushed to the listeners of each property*/
+	private HashMap<String, String> published;
+	
+	private ArrayList<ChangeSetListener> changeListeners;
+	/** Every property's value as last told to the ChangeSetListeners, null until one subscribes*/
+	private volatile HashMap<String, String> snapshot;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	/**
+	 * ConfigWatchers are made by their file's ConfigFileHandle (see ConfigFileHandle.getWatcher),
+	 * which starts the watch over the file's folder.
+	 * 
+	 * @param fileHandle
+	 */
+	
+	ConfigWatcher(ConfigFileHandle fileHandle) {
+		handle = fileHandle;
+		watchDirectory(fileHandle.getPath().getParent());
+		listeners = new HashMap<String, ArrayList<PropertyListener>>();
+		published = new HashMap<String, String>();
+		changeListeners = new ArrayList<ChangeSetListener>();
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	/**
+	 * Registers the PropertyListener to be told about changes to the given property of this
+	 * watcher's config file.
+	 * 
+	 * @param property
+	 * @param listener
+	 */
+	
+	public void subscribe(String property, PropertyListener listener) {
+		synchronized(this) {
+			if(!listeners.containsKey(property)) {
+				listeners.put(property, new ArrayList<PropertyListener>());
+				published.put(property, currentValue(property, handle.getStore().get(handle, property)));
+			}
+			listeners.get(property).add(listener);
+		}
+	}
+	
+	/**
+	 * Registers the ChangeSetListener to be told about every set of changes to this watcher's file.
+	 * 
+	 * @param listener
+	 */
+	
+	public void subscribe(ChangeSetListener listener) {
+		HashMap<String, String> current = snapshot == null ? readAll() : null;
+		synchronized(this) {
+			if(snapshot == null) {
+				snapshot = current == null ? readAll() : current;
+			}
+			changeListeners.add(listener);
+		}
+	}
+	
+	/**
+	 * Called by FileAccess when it writes a property so that listeners see the new value without
+	 * waiting on the file system (or on a write-behind flush); does nothing if no one has
+	 * subscribed to the file.
+	 * 
+	 * @param fileHandle
+	 * @param property
+	 * @param value
+	 */
+	
+	public static void publish(ConfigFileHandle fileHandle, String property, String value) {
+		publish(fileHandle, Collections.singletonMap(property, value));
+	}
+	
+	/**
+	 * Version of publish for several properties changed together, as by a ConfigTransaction; they
+	 * reach ChangeSetListeners as one set.
+	 * 
+	 * @param fileHandle
+	 * @param changes
+	 */
+	
+	public static void publish(ConfigFileHandle fileHandle, Map<String, String> changes) {
+		ConfigWatcher cw = fileHandle.peekWatcher();
+		if(cw != null) {
+			cw.pushAll(changes);
+		}
+	}
+	
+	private void pushAll(Map<String, String> changes) {
+		for(Map.Entry<String, String> e : changes.entrySet()) {
+			push(e.getKey(), e.getValue());
+		}
+		HashMap<String, String> changed = new HashMap<String, String>();
+		ArrayList<ChangeSetListener> notify;
+		synchronized(this) {
+			if(snapshot == null) {
+				return;
+			}
+			for(Map.Entry<String, String> e : changes.entrySet()) {
+				if(!Objects.equals(snapshot.get(e.getKey()), e.getValue())) {
+					changed.put(e.getKey(), e.getValue());
+					if(e.getValue() == null) {
+						snapshot.remove(e.getKey());
+					}
+					else {
+						snapshot.put(e.getKey(), e.getValue());
+					}
+				}
+			}
+			notify = new ArrayList<ChangeSetListener>(changeListeners);
+		}
+		if(changed.isEmpty()) {
+			return;
+		}
+		long version = handle.getVersion();
+		for(ChangeSetListener csl : notify) {
+			csl.changesApplied(version, changed);
+		}
+	}
+	
+	private void push(String property, String value) {
+		ArrayList<PropertyListener> notify;
+		synchronized(this) {
+			if(!listeners.containsKey(property) || Objects.equals(published.get(property), value)) {
+				return;
+			}
+			published.put(property, value);
+			notify = new ArrayList<PropertyListener>(listeners.get(property));
+		}
+		for(PropertyListener pl : notify) {
+			pl.propertyChanged(property, value);
+		}
+	}
+	
+	/**
+	 * Re-reads this watcher's file (through its ConfigCache, so only if it changed) and pushes every
+	 * listened-to property whose value differs from what was last published.
+	 * 
+	 */
+	
+	private void refresh() {
+		if(!handle.getStore().refresh(handle)) {
+			return;
+		}
+		ArrayList<String> properties;
+		boolean all;
+		synchronized(this) {
+			properties = new ArrayList<String>(listeners.keySet());
+			all = snapshot != null;
+		}
+		HashMap<String, String> changed = new HashMap<String, String>();
+		if(all) {
+			HashMap<String, String> entries = readAll();
+			synchronized(this) {
+				for(Map.Entry<String, String> e : entries.entrySet()) {
+					if(!Objects.equals(snapshot.get(e.getKey()), e.getValue())) {
+						changed.put(e.getKey(), e.getValue());
+					}
+				}
+				for(String property : snapshot.keySet()) {
+					if(!entries.containsKey(property)) {
+						changed.put(property, null);
+					}
+				}
+			}
+		}
+		HashMap<String, String> entries = handle.getStore().get(handle, properties);
+		synchronized(this) {
+			for(String property : properties) {
+				String value = currentValue(property, entries.get(property));
+				if(!Objects.equals(published.get(property), value)) {
+					changed.put(property, value);
+				}
+			}
+		}
+		pushAll(changed);
+	}
+	
+	/**
+	 * Returns every property's current value: the file's, with pending write-behind values over it.
+	 * 
+	 * @return
+	 */
+	
+	private HashMap<String, String> readAll() {
+		Map<String, String> entries = handle.getStore().getAll(handle);
+		HashMap<String, String> out = entries == null ? new HashMap<String, String>() : new HashMap<String, String>(entries);
+		out.putAll(handle.getWriter().getAllPending());
+		return out;
+	}
+	
+	private String currentValue(String property, String fileValue) {
+		String out = handle.getWriter().getPending(property);
+		return out == null ? fileValue : out;
+	}
+	
+	//-- Watch Thread  ----------------------------------------
+	
+	private static void watchDirectory(Path dir) {
+		synchronized(directories) {
+			if(watchThread == null) {
+				try {
+					service = FileSystems.getDefault().newWatchService();
+				}
+				catch(IOException e) {
+					System.err.println("Config file watching unavailable, falling back to polling every " + POLL_INTERVAL_MILLIS + "ms");
+					service = null;
+				}
+				watchThread = new Thread("config-file-watcher") {
+					@Override
+					public void run() {
+						watchLoop();
+					}
+				};
+				watchThread.setDaemon(true);
+				watchThread.start();
+			}
+			if(service == null || dir == null || directories.containsValue(dir)) {
+				return;
+			}
+			try {
+				WatchKey wk = dir.register(service, StandardWatchEventKinds.ENTRY_CREATE, StandardWatchEventKinds.ENTRY_MODIFY, StandardWatchEventKinds.ENTRY_DELETE);
+				directories.put(wk, dir);
+			}
+			catch(IOException e) {
+				System.err.println("Could not watch config folder: " + dir + ", changes there will be polled");
+			}
+		}
+	}
+	
+	private static void watchLoop() {
+		while(true) {
+			try {
+				HashSet<Path> changed = new HashSet<Path>();
+				if(service == null) {
+					Thread.sleep(POLL_INTERVAL_MILLIS);
+				}
+				else {
+					WatchKey wk = service.poll(POLL_INTERVAL_MILLIS, TimeUnit.MILLISECONDS);
+					long deadline = System.currentTimeMillis() + DEBOUNCE_LIMIT_MILLIS;
+					while(wk != null) {
+						collectEvents(wk, changed);
+						wk = System.currentTimeMillis() < deadline ? service.poll(DEBOUNCE_MILLIS, TimeUnit.MILLISECONDS) : null;
+					}
+				}
+				for(ConfigWatcher cw : affectedWatchers(changed)) {
+					cw.refresh();
+				}
+			}
+			catch(InterruptedException | ClosedWatchServiceException e) {
+				return;
+			}
+			catch(RuntimeException e) {
+				e.printStackTrace();
+			}
+		}
+	}
+	
+	private static void collectEvents(WatchKey wk, HashSet<Path> changed) {
+		Path dir;
+		synchronized(directories) {
+			dir = directories.get(wk);
+		}
+		for(WatchEvent<?> event : wk.pollEvents()) {
+			if(dir != null && event.context() instanceof Path) {
+				changed.add(dir.resolve((Path)event.context()));
+			}
+		}
+		wk.reset();
+	}
+	
+	/**
+	 * Returns the watchers whose files appear in the set of changed paths, or every watcher if the
+	 * set is empty (the poll timed out with no events, so every file is given a cheap re-check).
+	 * 
+	 * @param changed
+	 * @return
+	 */
+	
+	private static ArrayList<ConfigWatcher> affectedWatchers(HashSet<Path> changed) {
+		ArrayList<ConfigWatcher> out = new ArrayList<ConfigWatcher>();
+		for(ConfigFileHandle cfh : ConfigFileHandle.getAll()) {
+			ConfigWatcher cw = cfh.peekWatcher();
+			if(cw != null && (changed.isEmpty() || changed.contains(cfh.getPath()) || changed.contains(cfh.getJournal().getFile().toPath()))) {
+				out.add(cw);
+			}
+		}
+		return out;
+	}
+	
+}
@@ -1,5 +1,13 @@
 package file;
 import java.io.File;
+import java.io.IOException;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.function.Supplier;
 
 import filemeta.config.Config;
 import filemeta.config.ValidateFiles;
@@ -38,37 +46,270 @@ public class FileAccess implements ValidateFiles, SpecificFileAccessor{
 	private static final String CONFIG_DESCRIPTION_DEFAULT = "Default config file description";
 	
 	public static final String CONFIG_FOLDER = "config";
+	/** Value for the write-behind delay that denotes writes go straight to the file instead of being batched*/
+	public static final int WRITE_IMMEDIATE = -1;
+	/** Read mode where the config file is parsed into a map of every value (the default)*/
+	public static final int READ_EAGER = 0;
+	/** Read mode where the config file is memory-mapped and values decoded on demand, see ConfigIndex*/
+	public static final int READ_MAPPED = 1;
+	/** Storage mode where every write rewrites the config file (the default)*/
+	public static final int STORAGE_REWRITE = 0;
+	/** Storage mode where writes are appended to a journal beside the config file, see ConfigJournal*/
+	public static final int STORAGE_JOURNAL = 1;
 	
 //---  Instance Variables   -------------------------------------------------------------------
 	
-	private String baseConfigPath;
+	/** Shared cache, lock and write queue for the config file this FileAccess points at*/
+	private ConfigFileHandle handle;
+	/** Milliseconds a write may wait to be batched with later writes, or WRITE_IMMEDIATE*/
+	private int writeDelay;
+	/** Number of pending property writes that causes a batch to be written without waiting for writeDelay*/
+	private int writeBatch;
+	/** Whether setWriteBehind has been called, so the write mode is handed on to the files this spawns accessors for*/
+	private boolean writeModeSet;
+	/** STORAGE_REWRITE or STORAGE_JOURNAL, handed on to the files this spawns accessors for once set*/
+	private int storageMode;
 	
-	private String configName;
+	private boolean storageModeSet;
+	/** READ_EAGER or READ_MAPPED, handed on to the files this spawns accessors for once set*/
+	private int readMode;
+	
+	private boolean readModeSet;
+	/** Whether files this spawns accessors for are locked across processes, handed on once set*/
+	private boolean processLocking;
+	
+	private boolean processLockingSet;
+	/** Whether files this spawns accessors for keep a ConfigSnapshot beside them, handed on once set*/
+	private boolean snapshots;
+	
+	private boolean snapshotsSet;
+	/** ConfigStore handed on to the files this spawns accessors for, null until set*/
+	private ConfigStore store;
 
 //---  Constructors   -------------------------------------------------------------------------
 	
 	public FileAccess(String folderPath) {
-		baseConfigPath = folderPath;
-		configName = CONFIG_FILE_NAME;
+		this(folderPath, CONFIG_FILE_NAME);
 	}
 	
 	public FileAccess(String folderPath, String inConfigName) {
-		baseConfigPath = folderPath;
-		configName = inConfigName;
+		this(ConfigFileHandle.get(folderPath, inConfigName));
+	}
+	
+	/**
+	 * Constructor used by ConfigFileHandle to make the one canonical FileAccess for its file, and by
+	 * PropertyAccess to share its file's handle.
+	 * 
+	 * @param fileHandle
+	 */
+	
+	FileAccess(ConfigFileHandle fileHandle) {
+		handle = fileHandle;
+		writeDelay = WRITE_IMMEDIATE;
 	}
 	
 //---  Operations   ---------------------------------------------------------------------------
 
 	public String accessData(String property) throws Exception{
-		String out = Config.getConfigFileEntry(configPath(), property);
+		String out = find(property);
 		if(out == null) {
 			throw new Exception("Property field: " + property + " not present in config.txt file");
 		}
 		return out;
 	}
 	
+	public Optional<String> findData(String property) {
+		return Optional.ofNullable(find(property));
+	}
+	
+	/**
+	 * Reads the property on the config I/O executor (see ConfigIO) rather than the calling thread;
+	 * the returned future completes exceptionally if the property is not present.
+	 * 
+	 * @param property
+	 * @return
+	 */
+	
+	public CompletableFuture<String> accessDataAsync(final String property) {
+		return CompletableFuture.supplyAsync(new Supplier<String>() {
+			@Override
+			public String get() {
+				String out = handle.find(property);
+				if(out == null) {
+					throw new CompletionException(new Exception("Property field: " + property + " not present in config.txt file"));
+				}
+				return out;
+			}
+		}, ConfigIO.getExecutor());
+	}
+	
+	public HashMap<String, String> accessData(String ... properties) {
+		HashMap<String, String> out = handle.getStore().get(handle, Arrays.asList(properties));
+		WriteBehind queue = handle.getWriter();
+		for(String property : properties) {
+			String value = queue.getPending(property);
+			if(value != null) {
+				out.put(property, value);
+			}
+		}
+		ConfigTransaction tx = ConfigTransaction.current();
+		if(tx != null) {
+			for(String property : properties) {
+				String value = tx.lookup(handle, property);
+				if(value != null) {
+					out.put(property, value);
+				}
+			}
+		}
+		return out;
+	}
+	
+	public HashMap<String, String> accessAll() {
+		Map<String, String> entries = handle.getStore().getAll(handle);
+		HashMap<String, String> out = entries == null ? new HashMap<String, String>() : new HashMap<String, String>(entries);
+		out.putAll(handle.getWriter().getAllPending());
+		ConfigTransaction tx = ConfigTransaction.current();
+		if(tx != null) {
+			out.putAll(tx.getChanges(handle));
+		}
+		return out;
+	}
+	
+	/**
+	 * Writes the new value to the property in this FileAccess' config file; if the file is in
+	 * write-behind mode (see setWriteBehind) the write is held in memory and batched with other writes to the same
+	 * file, otherwise it (and anything else pending for the file) is written before returning.
+	 * 
+	 * Either way, the new value is what accessData will return from here on.
+	 * 
+	 * If a ConfigTransaction is open on the calling thread, the write is recorded in it instead and
+	 * only written when the transaction commits.
+	 * 
+	 */
+	
 	public boolean assignData(String property, String newEntry) {
-		return Config.setConfigFileEntry(configPath(), property, newEntry);
+		ConfigTransaction tx = ConfigTransaction.current();
+		if(tx != null) {
+			tx.set(handle, property, newEntry);
+			return true;
+		}
+		WriteBehind queue = handle.getWriter();
+		queue.stage(property, newEntry);
+		boolean out = !queue.isImmediate() || queue.flush();
+		if(out) {
+			ConfigWatcher.publish(handle, property, newEntry);
+		}
+		return out;
+	}
+	
+	/**
+	 * Version of assignData that doesn't wait on the file: the new value is accepted (and is what
+	 * accessData returns) before this returns, and the rewrite of the file happens on the config I/O
+	 * executor; the returned future completes with whether that rewrite succeeded.
+	 * 
+	 * Rewrites of the same file happen in the order their assignDataAsync calls were made. Inside
+	 * a ConfigTransaction the future completes once the transaction has been committed.
+	 * 
+	 * @param property
+	 * @param newEntry
+	 * @return
+	 */
+	
+	public CompletableFuture<Boolean> assignDataAsync(String property, String newEntry) {
+		ConfigTransaction tx = ConfigTransaction.current();
+		if(tx != null) {
+			tx.set(handle, property, newEntry);
+			return tx.getResult();
+		}
+		final WriteBehind queue = handle.getWriter();
+		queue.stage(property, newEntry);
+		ConfigWatcher.publish(handle, property, newEntry);
+		if(!queue.isImmediate()) {
+			return CompletableFuture.completedFuture(true);
+		}
+		return CompletableFuture.supplyAsync(new Supplier<Boolean>() {
+			@Override
+			public Boolean get() {
+				return queue.flush();
+			}
+		}, handle.getIOQueue());
+	}
+	
+	/**
+	 * Makes sure every property in defaults has a value in this FileAccess' config file: properties
+	 * that are missing are added and properties whose value is 'null' are set, each to its default,
+	 * while properties with any other value are left alone. The file is read once and written at
+	 * most once however many defaults are given (and is created if it doesn't exist), along with
+	 * any write-behind values still pending for it.
+	 * 
+	 * @param defaults
+	 * @return
+	 */
+	
+	public boolean ensureDefaults(Map<String, String> defaults) {
+		HashMap<String, String> written;
+		Map<String, String> pending = null;
+		handle.lockWrite();
+		try {
+			boolean existed = handle.getStore().exists(handle);
+			pending = handle.getWriter().takePending();
+			written = handle.getStore().ensure(handle, CONFIG_DESCRIPTION_DEFAULT, defaults, pending, true);
+			if(!existed || !written.isEmpty()) {
+				handle.markWritten();
+			}
+		}
+		catch(IOException e) {
+			System.err.println("Failure to write defaults to config file: " + handle.getPath());
+			handle.getWriter().requeue(pending);
+			return false;
+		}
+		finally {
+			handle.getStore().invalidate(handle);
+			handle.bumpVersion();
+			handle.unlockWrite();
+		}
+		ConfigWatcher.publish(handle, written);
+		return true;
+	}
+	
+	/**
+	 * Begins a ConfigTransaction on the calling thread; see ConfigTransaction.
+	 * 
+	 * @return
+	 */
+	
+	public static ConfigTransaction beginTransaction() {
+		return ConfigTransaction.begin();
+	}
+	
+	/**
+	 * Immediately writes any property values for this FileAccess' config file that are still
+	 * waiting in write-behind mode.
+	 * 
+	 */
+	
+	public boolean flush() {
+		return handle.getWriter().flush();
+	}
+	
+	/**
+	 * Immediately writes every pending write-behind property value for every config file.
+	 * 
+	 */
+	
+	public static void flushAll() {
+		WriteBehind.flushAll();
+	}
+	
+	/**
+	 * Sets how often config file rewrites are forced to disk; see ConfigFileWriter's
+	 * DURABILITY_ALWAYS, DURABILITY_BATCHED (the default) and DURABILITY_NEVER.
+	 * 
+	 * @param policy
+	 */
+	
+	public static void setDurability(int policy) {
+		ConfigFileWriter.setDurability(policy);
 	}
 	
 	public void assignProperties(String path, String file, String ... properties) {
@@ -86,7 +327,7 @@ public class FileAccess implements ValidateFiles, SpecificFileAccessor{
 //---  Getter Methods   -----------------------------------------------------------------------
 	
 	/**
-	 * Getter method that spawns a SpecificFileAccessor object tied to the file named "config.txt"
+	 * Getter method that returns the SpecificFileAccessor object tied to the file named "config.txt"
 	 * in the folder pointed to by the argument configPath String.
 	 * 
 	 * SpecificFileAccessor is an interface that exposes only the 'accessData' and 'assignData' methods.
@@ -96,23 +337,47 @@ public class FileAccess implements ValidateFiles, SpecificFileAccessor{
 	 */
 	
 	public SpecificFileAccessor getConfigAccessor(String configPath) {
-		return new FileAccess(configPath);
+		return getConfigAccessor(configPath, CONFIG_FILE_NAME);
 	}
 	
 	/**
-	 * Getter method that spawns a SpecificFileAccessor object tied to the file identified
+	 * Getter method that returns the SpecificFileAccessor object tied to the file identified
 	 * in the folder pointed to by the argument configPath String and named as defined by
 	 * the argument configFileName String.
 	 * 
 	 * SpecificFileAccessor is an interface that exposes only the 'accessData' and 'assignData' methods.
 	 * 
+	 * There is only one per file (see ConfigFileHandle), so repeated calls don't allocate and every
+	 * caller shares the file's cache and write queue; if this FileAccess had setWriteBehind,
+	 * setStorageMode, setReadMode, setSnapshots, setProcessLocking or setConfigStore called on it,
+	 * that mode is applied to the file.
+	 * 
 	 * @param configPath
 	 * @param configFileName
 	 * @return
 	 */
 	
 	public SpecificFileAccessor getConfigAccessor(String configPath, String configFileName) {
-		return new FileAccess(configPath, configFileName);
+		ConfigFileHandle cfh = ConfigFileHandle.get(configPath, configFileName);
+		if(writeModeSet) {
+			cfh.getWriter().configure(writeDelay, writeBatch);
+		}
+		if(storageModeSet) {
+			cfh.getJournal().setEnabled(storageMode == STORAGE_JOURNAL);
+		}
+		if(readModeSet) {
+			cfh.getCache().setMapped(readMode == READ_MAPPED);
+		}
+		if(processLockingSet) {
+			cfh.getProcessLock().setEnabled(processLocking);
+		}
+		if(snapshotsSet) {
+			cfh.getCache().setSnapshots(snapshots);
+		}
+		if(store != null) {
+			cfh.setStore(store);
+		}
+		return cfh.getAccessor();
 	}
 	
 	/**
@@ -130,7 +395,167 @@ public class FileAccess implements ValidateFiles, SpecificFileAccessor{
 	 */
 	
 	public SpecificPropertyAccessor getPropertyAccessor(String property) {
-		return new PropertyAccess(baseConfigPath, configName, property);
+		return handle.getPropertyAccessor(property);
+	}
+	
+	public long getFileVersion() {
+		return handle.getVersion();
+	}
+	
+	public void addChangeSetListener(ChangeSetListener listener) {
+		handle.getWatcher().subscribe(listener);
+	}
+	
+//---  Setter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Puts this FileAccess' config file (and the files of any accessors it hands out afterwards) into
+	 * write-behind mode, where assignData holds writes in memory and writes them to the file as one
+	 * rewrite once delayMillis has passed since the first of them or batchSize property writes are waiting.
+	 * 
+	 * Pass WRITE_IMMEDIATE as the delay to go back to writing on every assignData call.
+	 * 
+	 * @param delayMillis
+	 * @param batchSize
+	 */
+	
+	public void setWriteBehind(int delayMillis, int batchSize) {
+		writeDelay = delayMillis < 0 ? WRITE_IMMEDIATE : delayMillis;
+		writeBatch = batchSize;
+		writeModeSet = true;
+		handle.getWriter().configure(writeDelay, writeBatch);
+	}
+	
+	/**
+	 * Sets how this FileAccess' config file (and the files of any accessors it hands out afterwards)
+	 * stores updates: STORAGE_REWRITE rewrites the file for each batch of writes, STORAGE_JOURNAL
+	 * appends them to a journal beside it that is folded back into the file in the background.
+	 * 
+	 * @param mode
+	 */
+	
+	public void setStorageMode(int mode) {
+		storageMode = mode;
+		storageModeSet = true;
+		handle.getJournal().setEnabled(mode == STORAGE_JOURNAL);
+	}
+	
+	/**
+	 * Sets how this FileAccess' config file (and the files of any accessors it hands out afterwards)
+	 * is held in memory: READ_EAGER parses every value when the file is read, READ_MAPPED memory-maps
+	 * the file, indexes where each value is and only decodes the values asked for, which suits very
+	 * large generated config files.
+	 * 
+	 * Note that Windows won't let a file that is mapped be replaced, so READ_MAPPED is for files that
+	 * are mostly read on that platform.
+	 * 
+	 * @param mode
+	 */
+	
+	public void setReadMode(int mode) {
+		readMode = mode;
+		readModeSet = true;
+		handle.getCache().setMapped(mode == READ_MAPPED);
+	}
+	
+	/**
+	 * Sets whether this FileAccess' config file (and the files of any accessors it hands out afterwards)
+	 * keeps a compact binary ConfigSnapshot beside it (config.txt.snap), which is loaded with a single
+	 * read in place of parsing the file whenever it still matches the file, and remade in the background
+	 * when it doesn't; the text file remains the one that counts. Doesn't apply in READ_MAPPED mode.
+	 * 
+	 * @param snapshot
+	 */
+	
+	public void setSnapshots(boolean snapshot) {
+		snapshots = snapshot;
+		snapshotsSet = true;
+		handle.getCache().setSnapshots(snapshot);
+	}
+	
+	/**
+	 * Sets whether this FileAccess' config file (and the files of any accessors it hands out afterwards)
+	 * is locked against other programs using it at the same time: reads take a shared lock and writes
+	 * an exclusive one on a sidecar beside the file, see ConfigFileLock. Off by default, as a config
+	 * file is normally only used by the one program.
+	 * 
+	 * @param lock
+	 */
+	
+	public void setProcessLocking(boolean lock) {
+		processLocking = lock;
+		processLockingSet = true;
+		handle.getProcessLock().setEnabled(lock);
+	}
+	
+	/**
+	 * Sets the ConfigStore that this FileAccess' config file (and the files of any accessors it hands
+	 * out afterwards) is kept in: a TextConfigStore (the default), MemoryConfigStore, BinaryConfigStore
+	 * or any other implementation. Storage, read and process locking modes only apply to the text store.
+	 * 
+	 * @param configStore
+	 */
+	
+	public void setConfigStore(ConfigStore configStore) {
+		store = configStore;
+		handle.setStore(configStore);
+	}
+	
+	/**
+	 * Getter methods reporting how many reads of this FileAccess' config file were answered from
+	 * the in-memory ConfigCache (hits) versus how many required re-parsing the file (misses).
+	 * 
+	 * @return
+	 */
+	
+	public long getCacheHitCount() {
+		return handle.getCache().getHitCount();
+	}
+	
+	public long getCacheMissCount() {
+		return handle.getCache().getMissCount();
+	}
+	
+	/**
+	 * Getter method reporting how many reads of this FileAccess' config file asked for a property
+	 * that wasn't present.
+	 * 
+	 * @return
+	 */
+	
+	public long getMissingPropertyCount() {
+		return handle.getMissingServedCount();
+	}
+	
+	/**
+	 * Getter method reporting how many times this FileAccess' config file was loaded from its
+	 * snapshot instead of being parsed.
+	 * 
+	 * @return
+	 */
+	
+	public long getSnapshotLoadCount() {
+		return handle.getCache().getSnapshotLoadCount();
+	}
+	
+	/**
+	 * Getter methods reporting, with process locking on, how many times locking this FileAccess'
+	 * config file had to wait on another program, the total nanoseconds spent waiting, and how many
+	 * writes to the file by other programs have been noticed.
+	 * 
+	 * @return
+	 */
+	
+	public long getLockContentionCount() {
+		return handle.getProcessLock().getContendedCount();
+	}
+	
+	public long getLockWaitNanos() {
+		return handle.getProcessLock().getWaitNanos();
+	}
+	
+	public long getForeignWriteCount() {
+		return handle.getProcessLock().getForeignWriteCount();
 	}
 	
 //---  Support Methods   ----------------------------------------------------------------------
@@ -140,8 +565,22 @@ public class FileAccess implements ValidateFiles, SpecificFileAccessor{
 		return Config.CONFIG_VERIFY_SUCCESS;
 	}
 	
-	private String configPath() {
-		return baseConfigPath + "/" + configName + (configName.endsWith(".txt") ? "" : ".txt");
+	/**
+	 * Looks the property up in the calling thread's open ConfigTransaction, if any, and otherwise
+	 * in the config file (and its pending writes).
+	 * 
+	 * @param property
+	 * @return
+	 */
+	
+	private String find(String property) {
+		ConfigTransaction tx = ConfigTransaction.current();
+		String out = tx == null ? null : tx.lookup(handle, property);
+		return out == null ? handle.find(property) : out;
+	}
+	
+	ConfigFileHandle getHandle() {
+		return handle;
 	}
 	
 }
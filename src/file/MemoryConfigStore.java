@@ -0,0 +1,177 @@
+package file;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * 
+ * MemoryConfigStore keeps each config file as a map held only in memory: nothing is read from or
+ * written to the disk, so pages and Behaviors run against it cost only what they do themselves
+ * (useful for measuring them without disk noise) and its contents are gone when the program ends.
+ * 
+ * Files start out absent, as with a folder that has no config files yet; ensureDefaults (or a
+ * ConfigTree, or put) creates them.
+ * 
+ * Use:
+ *  - MemoryConfigStore mcs = new MemoryConfigStore()
+ *  - configMenu.setConfigStore(mcs) (or FileAccess.setConfigStore) before adding pages
+ *  - optionally mcs.put(folder, file, contents) to start a file with given contents
+ * 
+ */
+
+public class MemoryConfigStore implements ConfigStore{
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	/** Contents of every file in this store by its ConfigFileHandle's path, properties in the order added*/
+	private HashMap<Path, LinkedHashMap<String, String>> files;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	public MemoryConfigStore() {
+		files = new HashMap<Path, LinkedHashMap<String, String>>();
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	/**
+	 * Sets the whole contents of the named config file in this store, creating it if needed.
+	 * 
+	 * @param folderPath
+	 * @param configName
+	 * @param contents
+	 */
+	
+	public void put(String folderPath, String configName, Map<String, String> contents) {
+		ConfigFileHandle cfh = ConfigFileHandle.get(folderPath, configName);
+		synchronized(this) {
+			files.put(cfh.getPath(), new LinkedHashMap<String, String>(contents));
+		}
+		cfh.bumpVersion();
+	}
+	
+	@Override
+	public synchronized String get(ConfigFileHandle file, String property) {
+		LinkedHashMap<String, String> contents = files.get(file.getPath());
+		return contents == null ? null : contents.get(property);
+	}
+	
+	@Override
+	public synchronized HashMap<String, String> get(ConfigFileHandle file, Iterable<String> properties) {
+		HashMap<String, String> out = new HashMap<String, String>();
+		LinkedHashMap<String, String> contents = files.get(file.getPath());
+		if(contents == null) {
+			return out;
+		}
+		for(String property : properties) {
+			String value = contents.get(property);
+			if(value != null) {
+				out.put(property, value);
+			}
+		}
+		return out;
+	}
+	
+	@Override
+	public synchronized Map<String, String> getAll(ConfigFileHandle file) {
+		LinkedHashMap<String, String> contents = files.get(file.getPath());
+		return contents == null ? null : Collections.unmodifiableMap(new LinkedHashMap<String, String>(contents));
+	}
+	
+	/**
+	 * Nothing outside this program can change the contents, so there is never anything to take in.
+	 * 
+	 */
+	
+	@Override
+	public boolean refresh(ConfigFileHandle file) {
+		return exists(file);
+	}
+	
+	@Override
+	public void invalidate(ConfigFileHandle file) {
+		return;
+	}
+	
+	@Override
+	public synchronized boolean exists(ConfigFileHandle file) {
+		return files.containsKey(file.getPath());
+	}
+	
+	@Override
+	public boolean write(ConfigFileHandle file, Map<String, String> updates) {
+		synchronized(this) {
+			LinkedHashMap<String, String> contents = files.get(file.getPath());
+			if(contents == null) {
+				return false;
+			}
+			for(Map.Entry<String, String> e : updates.entrySet()) {
+				if(contents.containsKey(e.getKey())) {
+					contents.put(e.getKey(), e.getValue());
+				}
+			}
+		}
+		file.bumpVersion();
+		return true;
+	}
+	
+	/**
+	 * Only checks that the file exists, as a write to memory can't otherwise fail.
+	 * 
+	 */
+	
+	@Override
+	public Prepared prepare(final ConfigFileHandle file, final Map<String, String> updates) throws IOException{
+		if(!exists(file)) {
+			throw new IOException("No such config file in memory: " + file.getPath());
+		}
+		return new Prepared() {
+			@Override
+			public void install() {
+				write(file, updates);
+			}
+			
+			@Override
+			public void discard() {
+				return;
+			}
+		};
+	}
+	
+	@Override
+	public HashMap<String, String> ensure(ConfigFileHandle file, String description, Map<String, String> defaults, Map<String, String> updates, boolean replaceNull) {
+		HashMap<String, String> written = new HashMap<String, String>();
+		boolean created;
+		synchronized(this) {
+			LinkedHashMap<String, String> contents = files.get(file.getPath());
+			created = contents == null;
+			if(created) {
+				contents = new LinkedHashMap<String, String>();
+				files.put(file.getPath(), contents);
+			}
+			for(Map.Entry<String, String> e : updates.entrySet()) {
+				if(contents.containsKey(e.getKey())) {
+					contents.put(e.getKey(), e.getValue());
+					written.put(e.getKey(), e.getValue());
+				}
+			}
+			for(Map.Entry<String, String> e : defaults.entrySet()) {
+				String name = e.getKey();
+				String value = updates.containsKey(name) ? updates.get(name) : e.getValue();
+				if(!contents.containsKey(name) || (replaceNull && !updates.containsKey(name) && ConfigFileWriter.NULL_VALUE.equals(contents.get(name)))) {
+					contents.put(name, value);
+					written.put(name, value);
+				}
+			}
+		}
+		if(created || !written.isEmpty()) {
+			file.bumpVersion();
+		}
+		return written;
+	}
+	
+}
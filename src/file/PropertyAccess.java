@@ -1,22 +1,189 @@
 package file;
 
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Objects;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 public class PropertyAccess extends FileAccess implements SpecificPropertyAccessor{
 
 	private String property;
+	/** Resolved location of the config file, worked out once when this PropertyAccess was made*/
+	private Path path;
+
+	//-- Decoded  ---------------------------------------------
+
+	/** File version that the decoded values below were taken from, -1 if none yet*/
+	private long decodedVersion;
+	/** The property's value at decodedVersion, null if it wasn't present*/
+	private String raw;
+	/** File version at which raw was last seen to change; the property's own version*/
+	private long changedVersion;
+
+	private boolean boolValue;
+
+	private boolean intDecoded;
+
+	private int intValue;
+
+	private boolean doubleDecoded;
+
+	private double doubleValue;
+
+	private Path pathValue;
+	/** Options array that enumIndex was found in, compared by identity*/
+	private String[] enumOptions;
+
+	private int enumIndex;
 
 	public PropertyAccess(String folderPath, String configFile, String targetProperty) {
-		super(folderPath, configFile);
+		this(ConfigFileHandle.get(folderPath, configFile), targetProperty);
+	}
+
+	PropertyAccess(ConfigFileHandle fileHandle, String targetProperty) {
+		super(fileHandle);
 		property = targetProperty;
+		path = fileHandle.getPath();
+		decodedVersion = -1;
 	}
-	
+
 	@Override
 	public String getConfigPropertyValue() throws Exception {
 		return this.accessData(property);
 	}
 
+	@Override
+	public Optional<String> findConfigPropertyValue() {
+		return this.findData(property);
+	}
+
 	@Override
 	public boolean setConfigPropertyValue(String value) {
 		return this.assignData(property, value);
 	}
 
+	@Override
+	public CompletableFuture<Boolean> setConfigPropertyValueAsync(String value) {
+		return this.assignDataAsync(property, value);
+	}
+
+	@Override
+	public synchronized boolean getBoolean() throws Exception {
+		decode();
+		return boolValue;
+	}
+
+	@Override
+	public synchronized int getInt() throws Exception {
+		decode();
+		if(!intDecoded) {
+			intValue = Integer.parseInt(raw.trim());
+			intDecoded = true;
+		}
+		return intValue;
+	}
+
+	@Override
+	public synchronized double getDouble() throws Exception {
+		decode();
+		if(!doubleDecoded) {
+			doubleValue = Double.parseDouble(raw.trim());
+			doubleDecoded = true;
+		}
+		return doubleValue;
+	}
+
+	@Override
+	public synchronized int getEnumIndex(String ... options) throws Exception {
+		decode();
+		if(enumOptions != options) {
+			enumIndex = -1;
+			for(int i = 0; i < options.length; i++) {
+				if(options[i].equals(raw)) {
+					enumIndex = i;
+					break;
+				}
+			}
+			enumOptions = options;
+		}
+		return enumIndex;
+	}
+
+	@Override
+	public synchronized Path getPath() throws Exception {
+		decode();
+		if(pathValue == null) {
+			pathValue = Paths.get(raw);
+		}
+		return pathValue;
+	}
+
+	@Override
+	public synchronized long getVersion() {
+		update();
+		return changedVersion;
+	}
+
+	@Override
+	public void addPropertyListener(PropertyListener listener) {
+		getHandle().getWatcher().subscribe(property, listener);
+	}
+
+	/**
+	 * Brings the decoded values up to date with the config file, re-reading the property (and
+	 * forgetting everything decoded from its old value) only if the file's version has moved on;
+	 * throws an Exception if the property isn't present.
+	 *
+	 * @throws Exception
+	 */
+
+	private void decode() throws Exception {
+		update();
+		if(raw == null) {
+			throw new Exception("Property field: " + property + " not present in config.txt file");
+		}
+	}
+
+	/**
+	 * Brings raw up to date: with the value recorded for the property by the ConfigTransaction open on
+	 * this thread if it has one (which the file's version doesn't count, so it isn't kept as decoded
+	 * for that version), otherwise with the file's value if its version has moved on.
+	 * 
+	 */
+
+	private void update() {
+		long version = getHandle().getVersion();
+		ConfigTransaction tx = ConfigTransaction.current();
+		String recorded = tx == null ? null : tx.lookup(getHandle(), property);
+		if(recorded != null) {
+			decodedVersion = -1;
+			take(recorded, version);
+		}
+		else if(version != decodedVersion) {
+			decodedVersion = version;
+			take(getHandle().find(property), version);
+		}
+	}
+
+	private void take(String value, long version) {
+		if(!Objects.equals(value, raw)) {
+			raw = value;
+			changedVersion = version;
+			boolValue = "true".equals(value);
+			intDecoded = false;
+			doubleDecoded = false;
+			pathValue = null;
+			enumOptions = null;
+		}
+	}
+
+	public String getProperty() {
+		return property;
+	}
+
+	public Path getFilePath() {
+		return path;
+	}
+
 }
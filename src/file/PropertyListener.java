@@ -0,0 +1,24 @@
+package file;
+
+/**
+ * 
+ * Interface for objects that want to be told when a particular config property's value changes,
+ * rather than re-reading the property to check; subscribe through a SpecificPropertyAccessor.
+ * 
+ * Calls may arrive from the config file watcher's thread, not the thread that subscribed.
+ * 
+ */
+
+public interface PropertyListener {
+	
+	/**
+	 * Called with the property's new value when it differs from the last value this listener
+	 * was told about (value is null if the property is no longer present in the file).
+	 * 
+	 * @param property
+	 * @param value
+	 */
+	
+	public abstract void propertyChanged(String property, String value);
+	
+}
@@ -1,5 +1,10 @@
 package file;
 
+import java.util.HashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 
  * Idea is we can pass an interfaced version of FileAccess to specific areas of other programs
@@ -11,8 +16,78 @@ public interface SpecificFileAccessor {
 
 	public abstract String accessData(String property) throws Exception;
 	
+	/**
+	 * Reads the property without throwing if it is absent: returns an empty Optional instead, which
+	 * is cheap to do repeatedly (missing properties are remembered until the file changes).
+	 * 
+	 * @param property
+	 * @return
+	 */
+	
+	public abstract Optional<String> findData(String property);
+	
+	/**
+	 * Reads all of the requested properties from a single pass over the config file; properties
+	 * that aren't present are left out of the returned map.
+	 * 
+	 * @param properties
+	 * @return
+	 */
+	
+	public abstract HashMap<String, String> accessData(String ... properties);
+	
+	/**
+	 * Reads every property in the config file from a single pass over it.
+	 * 
+	 * @return
+	 */
+	
+	public abstract HashMap<String, String> accessAll();
+	
 	public abstract boolean assignData(String property, String value);
 	
+	/**
+	 * Asynchronous versions of accessData and assignData that do their file work on a separate
+	 * I/O thread, for callers (like Behaviors run from a click) that mustn't block on the disk.
+	 * 
+	 * A value given to assignDataAsync is visible to reads as soon as the call returns; the future
+	 * completes once it is written to the file.
+	 * 
+	 */
+	
+	public abstract CompletableFuture<String> accessDataAsync(String property);
+	
+	public abstract CompletableFuture<Boolean> assignDataAsync(String property, String value);
+	
+	/**
+	 * Gives every property in defaults that is missing from the config file, or set to 'null', its
+	 * default value, reading and writing the file once for all of them; see FileAccess.ensureDefaults.
+	 * 
+	 * @param defaults
+	 * @return
+	 */
+	
+	public abstract boolean ensureDefaults(Map<String, String> defaults);
+	
+	public abstract boolean flush();
+	
+	/**
+	 * Returns a number that increases whenever a property of the config file may have changed value,
+	 * whether by a write from this program or an edit of the file; cheap enough to call every frame.
+	 * 
+	 * @return
+	 */
+	
+	public abstract long getFileVersion();
+	
+	/**
+	 * Subscribes the ChangeSetListener to be told about each set of changes to the config file.
+	 * 
+	 * @param listener
+	 */
+	
+	public abstract void addChangeSetListener(ChangeSetListener listener);
+	
 	public abstract SpecificPropertyAccessor getPropertyAccessor(String property);
 	
 }
@@ -1,5 +1,9 @@
 package file;
 
+import java.nio.file.Path;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 
  * Idea with this is that, for certain Features that need to be consistent with data currently in
@@ -14,6 +18,86 @@ public interface SpecificPropertyAccessor {
 
 	public abstract String getConfigPropertyValue() throws Exception;
 	
+	/**
+	 * Reads the property without throwing if it is absent from the config file; returns an empty
+	 * Optional instead.
+	 * 
+	 * @return
+	 */
+	
+	public abstract Optional<String> findConfigPropertyValue();
+	
 	public abstract boolean setConfigPropertyValue(String value);
 	
+	/**
+	 * Version of setConfigPropertyValue that doesn't wait on the file; see SpecificFileAccessor.assignDataAsync.
+	 * 
+	 * @param value
+	 * @return
+	 */
+	
+	public abstract CompletableFuture<Boolean> setConfigPropertyValueAsync(String value);
+	
+	//-- Typed  -----------------------------------------------
+	
+	/*
+	 * Typed reads of the property: the value is decoded once per version of its config file and the
+	 * decoded result re-used until the file (or a write to it) changes, so repeated calls don't
+	 * allocate or compare Strings. Each throws an Exception if the property is not present.
+	 */
+	
+	/**
+	 * Returns true if the property's value is exactly 'true', false otherwise.
+	 * 
+	 * @return
+	 * @throws Exception
+	 */
+	
+	public abstract boolean getBoolean() throws Exception;
+	
+	/**
+	 * Returns the property's value as an int; throws a NumberFormatException if it isn't one.
+	 * 
+	 * @return
+	 * @throws Exception
+	 */
+	
+	public abstract int getInt() throws Exception;
+	
+	public abstract double getDouble() throws Exception;
+	
+	/**
+	 * Returns the index in the provided options of the property's value, or -1 if it is none of them.
+	 * 
+	 * The lookup is remembered for the same options array, so pass the same array on each call
+	 * (as BehaviorConfigToggle does with its toggle values) to get the cached result.
+	 * 
+	 * @param options
+	 * @return
+	 * @throws Exception
+	 */
+	
+	public abstract int getEnumIndex(String ... options) throws Exception;
+	
+	public abstract Path getPath() throws Exception;
+	
+	/**
+	 * Returns a number that increases whenever this property's value changes (and only then; writes
+	 * to other properties of the file leave it alone), so a caller that remembers the number can tell
+	 * with one comparison whether it needs to look at the value again.
+	 * 
+	 * @return
+	 */
+	
+	public abstract long getVersion();
+	
+	/**
+	 * Subscribes the PropertyListener to be told whenever this property's value changes, whether
+	 * the change comes from this program or from the file being edited elsewhere.
+	 * 
+	 * @param listener
+	 */
+	
+	public abstract void addPropertyListener(PropertyListener listener);
+	
 }
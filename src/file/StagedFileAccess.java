@@ -0,0 +1,393 @@
+package file;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+import java.util.function.BiConsumer;
+
+/**
+ * 
+ * StagedFileAccess is a SpecificFileAccessor that holds writes in memory instead of passing them on
+ * to the config file: assignData 'stages' the new value, reads through this accessor (and through
+ * the PropertyAccessors it hands out) see staged values over the file's, and nothing reaches the file
+ * until apply() is called, which writes every staged value in one ConfigTransaction. revert() drops
+ * the staged values, which costs nothing as the file was never touched.
+ * 
+ * This is the Apply/Cancel model for a ConfigPage (see ConfigPage.enableStagedEdits): a page's
+ * Features and Behaviors are given accessors from this instead of the file, so clicking around the
+ * page only changes what is staged, and Apply writes the file once.
+ * 
+ * PropertyListeners subscribed through this are told about staged and reverted values as well as
+ * changes to the file, except for file changes to a property that has a value staged over it; the
+ * same goes for ChangeSetListeners and for the versions reported by getFileVersion and the
+ * PropertyAccessors' getVersion, which count staging changes on top of the file's version.
+ * 
+ */
+
+public class StagedFileAccess implements SpecificFileAccessor{
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	/** Accessor for the config file the staged values are written to on apply*/
+	private SpecificFileAccessor base;
+	/** Staged values by property, in the order they were first staged*/
+	private LinkedHashMap<String, String> staged;
+	/** Values taken out of 'staged' by apply or applyAsync, still what reads return until they are written*/
+	private HashMap<String, String> applying;
+	
+	private HashMap<String, StagedPropertyAccess> properties;
+	
+	private HashMap<String, ArrayList<PropertyListener>> listeners;
+	
+	private ArrayList<ChangeSetListener> changeListeners;
+	/** Number of times each property's staged value has been set or dropped*/
+	private HashMap<String, Long> stagedVersions;
+	/** Number of times any staged value has been set or dropped*/
+	private long stagedVersion;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	public StagedFileAccess(SpecificFileAccessor fileAccess) {
+		base = fileAccess;
+		staged = new LinkedHashMap<String, String>();
+		applying = new HashMap<String, String>();
+		properties = new HashMap<String, StagedPropertyAccess>();
+		listeners = new HashMap<String, ArrayList<PropertyListener>>();
+		changeListeners = new ArrayList<ChangeSetListener>();
+		stagedVersions = new HashMap<String, Long>();
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	@Override
+	public String accessData(String property) throws Exception {
+		String out = getStaged(property);
+		return out == null ? base.accessData(property) : out;
+	}
+	
+	@Override
+	public Optional<String> findData(String property) {
+		String out = getStaged(property);
+		return out == null ? base.findData(property) : Optional.of(out);
+	}
+	
+	@Override
+	public HashMap<String, String> accessData(String ... properties) {
+		HashMap<String, String> out = base.accessData(properties);
+		for(String property : properties) {
+			String value = getStaged(property);
+			if(value != null) {
+				out.put(property, value);
+			}
+		}
+		return out;
+	}
+	
+	@Override
+	public HashMap<String, String> accessAll() {
+		HashMap<String, String> out = base.accessAll();
+		synchronized(this) {
+			out.putAll(applying);
+			out.putAll(staged);
+		}
+		return out;
+	}
+	
+	/**
+	 * Stages the new value for the property; always succeeds, as nothing is written until apply().
+	 * 
+	 */
+	
+	@Override
+	public boolean assignData(String property, String value) {
+		synchronized(this) {
+			staged.put(property, value);
+			count(property);
+		}
+		notifyListeners(property, value);
+		notifyChangeSet(Collections.singletonMap(property, value));
+		return true;
+	}
+	
+	@Override
+	public CompletableFuture<String> accessDataAsync(String property) {
+		String out = getStaged(property);
+		return out == null ? base.accessDataAsync(property) : CompletableFuture.completedFuture(out);
+	}
+	
+	@Override
+	public CompletableFuture<Boolean> assignDataAsync(String property, String value) {
+		return CompletableFuture.completedFuture(assignData(property, value));
+	}
+	
+	/**
+	 * Writes every staged value to the config file, one rewrite for all of them, and clears them;
+	 * blocks until they are written and returns whether they were. If a ConfigTransaction is already
+	 * open on this thread the values are added to it instead and written when it commits.
+	 * 
+	 * @return
+	 */
+	
+	public boolean apply() {
+		return record().commit();
+	}
+	
+	/**
+	 * Version of apply() that writes on the config I/O executor; the staged values are cleared before
+	 * this returns, but are still what reads through this accessor return until the returned future
+	 * completes (after which they are the file's, or are dropped if they couldn't be written).
+	 * 
+	 * @return
+	 */
+	
+	public CompletableFuture<Boolean> applyAsync() {
+		return record().commitAsync();
+	}
+	
+	/**
+	 * Drops every staged value, telling listeners the properties are back to their file values.
+	 * 
+	 */
+	
+	public void revert() {
+		LinkedHashMap<String, String> dropped;
+		synchronized(this) {
+			dropped = staged;
+			staged = new LinkedHashMap<String, String>();
+			for(String property : dropped.keySet()) {
+				count(property);
+			}
+		}
+		restore(dropped.keySet());
+	}
+	
+	/**
+	 * Defaults are written straight to the config file rather than staged, as they aren't edits.
+	 * 
+	 */
+	
+	@Override
+	public boolean ensureDefaults(Map<String, String> defaults) {
+		return base.ensureDefaults(defaults);
+	}
+	
+	@Override
+	public boolean flush() {
+		return base.flush();
+	}
+	
+	/**
+	 * Moves the staged values into a ConfigTransaction begun on this thread (joining one already open),
+	 * through the base accessor, and returns it for the caller to commit. The values are kept in
+	 * 'applying' until the transaction completes, and listeners are told the file's values for them
+	 * again if it fails.
+	 * 
+	 * @return
+	 */
+	
+	private ConfigTransaction record() {
+		final LinkedHashMap<String, String> out;
+		synchronized(this) {
+			out = staged;
+			staged = new LinkedHashMap<String, String>();
+			applying.putAll(out);
+			for(String property : out.keySet()) {
+				count(property);
+			}
+		}
+		ConfigTransaction tx = ConfigTransaction.begin();
+		try {
+			for(Map.Entry<String, String> e : out.entrySet()) {
+				base.assignData(e.getKey(), e.getValue());
+			}
+		}
+		catch(RuntimeException e) {
+			tx.rollback();
+			throw e;
+		}
+		finally {
+			tx.getResult().whenComplete(new BiConsumer<Boolean, Throwable>() {
+				@Override
+				public void accept(Boolean result, Throwable error) {
+					synchronized(StagedFileAccess.this) {
+						for(Map.Entry<String, String> e : out.entrySet()) {
+							applying.remove(e.getKey(), e.getValue());
+						}
+					}
+					if(error != null || !result) {
+						restore(out.keySet());
+					}
+				}
+			});
+		}
+		return tx;
+	}
+	
+	/**
+	 * Tells listeners the properties are back to their file values (those without a value staged
+	 * over them since).
+	 * 
+	 * @param dropped
+	 */
+	
+	private void restore(Iterable<String> dropped) {
+		HashMap<String, String> restored = new HashMap<String, String>();
+		for(String property : dropped) {
+			if(getStaged(property) != null) {
+				continue;
+			}
+			String value = base.findData(property).orElse(null);
+			restored.put(property, value);
+			notifyListeners(property, value);
+		}
+		if(!restored.isEmpty()) {
+			notifyChangeSet(restored);
+		}
+	}
+	
+	/**
+	 * Subscribes the listener to be told about the property's staged values directly, and about
+	 * changes to the config file through the base accessor while the property has nothing staged.
+	 * 
+	 * @param property
+	 * @param listener
+	 */
+	
+	void subscribe(final String property, final PropertyListener listener) {
+		synchronized(this) {
+			ArrayList<PropertyListener> list = listeners.get(property);
+			if(list == null) {
+				list = new ArrayList<PropertyListener>();
+				listeners.put(property, list);
+			}
+			list.add(listener);
+		}
+		base.getPropertyAccessor(property).addPropertyListener(new PropertyListener() {
+			@Override
+			public void propertyChanged(String name, String value) {
+				if(getStaged(property) == null) {
+					listener.propertyChanged(name, value);
+				}
+			}
+		});
+	}
+	
+	/**
+	 * Subscribes the listener to be told about sets of staged values, and about sets of changes to
+	 * the config file less any properties that have values staged over them.
+	 * 
+	 * @param listener
+	 */
+	
+	public void addChangeSetListener(final ChangeSetListener listener) {
+		synchronized(this) {
+			changeListeners.add(listener);
+		}
+		base.addChangeSetListener(new ChangeSetListener() {
+			@Override
+			public void changesApplied(long version, Map<String, String> changes) {
+				HashMap<String, String> unstaged = new HashMap<String, String>();
+				for(Map.Entry<String, String> e : changes.entrySet()) {
+					if(getStaged(e.getKey()) == null) {
+						unstaged.put(e.getKey(), e.getValue());
+					}
+				}
+				if(!unstaged.isEmpty()) {
+					listener.changesApplied(getFileVersion(), unstaged);
+				}
+			}
+		});
+	}
+	
+	private void count(String property) {
+		Long at = stagedVersions.get(property);
+		stagedVersions.put(property, at == null ? 1L : at + 1);
+		stagedVersion++;
+	}
+	
+	private void notifyChangeSet(Map<String, String> changes) {
+		ArrayList<ChangeSetListener> list;
+		synchronized(this) {
+			if(changeListeners.isEmpty()) {
+				return;
+			}
+			list = new ArrayList<ChangeSetListener>(changeListeners);
+		}
+		long version = getFileVersion();
+		for(ChangeSetListener csl : list) {
+			csl.changesApplied(version, changes);
+		}
+	}
+	
+	private void notifyListeners(String property, String value) {
+		ArrayList<PropertyListener> list;
+		synchronized(this) {
+			list = listeners.get(property);
+			if(list == null) {
+				return;
+			}
+			list = new ArrayList<PropertyListener>(list);
+		}
+		for(PropertyListener pl : list) {
+			pl.propertyChanged(property, value);
+		}
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	@Override
+	public synchronized SpecificPropertyAccessor getPropertyAccessor(String property) {
+		StagedPropertyAccess out = properties.get(property);
+		if(out == null) {
+			out = new StagedPropertyAccess(this, base.getPropertyAccessor(property), property);
+			properties.put(property, out);
+		}
+		return out;
+	}
+	
+	public long getFileVersion() {
+		long out;
+		synchronized(this) {
+			out = stagedVersion;
+		}
+		return out + base.getFileVersion();
+	}
+	
+	/**
+	 * Returns how many times the property's staged value has been set or dropped, which
+	 * StagedPropertyAccess adds to the file's version of the property for its own.
+	 * 
+	 * @param property
+	 * @return
+	 */
+	
+	synchronized long getStagedVersion(String property) {
+		Long out = stagedVersions.get(property);
+		return out == null ? 0 : out;
+	}
+	
+	/**
+	 * Returns the value staged for the property (or still being written by apply), or null if it has none.
+	 * 
+	 * @param property
+	 * @return
+	 */
+	
+	public synchronized String getStaged(String property) {
+		String out = staged.get(property);
+		return out == null ? applying.get(property) : out;
+	}
+	
+	public synchronized HashMap<String, String> getStagedChanges() {
+		return new HashMap<String, String>(staged);
+	}
+	
+	public synchronized boolean hasStagedChanges() {
+		return !staged.isEmpty();
+	}
+	
+}
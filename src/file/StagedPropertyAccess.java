@@ -0,0 +1,103 @@
+package file;
+
+import java.nio.file.Path;
+import java.nio.file.Paths;
+import java.util.Optional;
+import java.util.concurrent.CompletableFuture;
+
+/**
+ * 
+ * SpecificPropertyAccessor handed out by a StagedFileAccess: writes stage the value in it, and reads
+ * return the staged value if there is one, otherwise they are passed to the property's accessor
+ * for the config file (keeping its decode-once caching for the common unstaged case).
+ * 
+ */
+
+public class StagedPropertyAccess implements SpecificPropertyAccessor{
+	
+	private StagedFileAccess stage;
+	/** Accessor for the property in the config file*/
+	private SpecificPropertyAccessor base;
+	
+	private String property;
+	
+	StagedPropertyAccess(StagedFileAccess staging, SpecificPropertyAccessor fileAccess, String targetProperty) {
+		stage = staging;
+		base = fileAccess;
+		property = targetProperty;
+	}
+	
+	@Override
+	public String getConfigPropertyValue() throws Exception {
+		String out = stage.getStaged(property);
+		return out == null ? base.getConfigPropertyValue() : out;
+	}
+	
+	@Override
+	public Optional<String> findConfigPropertyValue() {
+		return stage.findData(property);
+	}
+	
+	@Override
+	public boolean setConfigPropertyValue(String value) {
+		return stage.assignData(property, value);
+	}
+	
+	@Override
+	public CompletableFuture<Boolean> setConfigPropertyValueAsync(String value) {
+		return stage.assignDataAsync(property, value);
+	}
+	
+	@Override
+	public boolean getBoolean() throws Exception {
+		String out = stage.getStaged(property);
+		return out == null ? base.getBoolean() : "true".equals(out);
+	}
+	
+	@Override
+	public int getInt() throws Exception {
+		String out = stage.getStaged(property);
+		return out == null ? base.getInt() : Integer.parseInt(out.trim());
+	}
+	
+	@Override
+	public double getDouble() throws Exception {
+		String out = stage.getStaged(property);
+		return out == null ? base.getDouble() : Double.parseDouble(out.trim());
+	}
+	
+	@Override
+	public int getEnumIndex(String ... options) throws Exception {
+		String out = stage.getStaged(property);
+		if(out == null) {
+			return base.getEnumIndex(options);
+		}
+		for(int i = 0; i < options.length; i++) {
+			if(options[i].equals(out)) {
+				return i;
+			}
+		}
+		return -1;
+	}
+	
+	@Override
+	public Path getPath() throws Exception {
+		String out = stage.getStaged(property);
+		return out == null ? base.getPath() : Paths.get(out);
+	}
+	
+	@Override
+	public long getVersion() {
+		return base.getVersion() + stage.getStagedVersion(property);
+	}
+	
+	@Override
+	public void addPropertyListener(PropertyListener listener) {
+		stage.subscribe(property, listener);
+	}
+	
+	public String getProperty() {
+		return property;
+	}
+	
+}
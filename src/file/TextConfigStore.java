@@ -0,0 +1,125 @@
+package file;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * 
+ * TextConfigStore keeps each config file as the SVI text config file ('name = value</;>' entries)
+ * on disk: the format every config file has always been kept in, and the default ConfigStore.
+ * 
+ * Reads are answered by the file's ConfigCache; writes rewrite the file atomically with
+ * ConfigFileWriter, or append to its ConfigJournal in journal mode (see FileAccess.setStorageMode).
+ * Journal and mapped modes are features of this store only.
+ * 
+ */
+
+public class TextConfigStore implements ConfigStore{
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	@Override
+	public String get(ConfigFileHandle file, String property) {
+		return file.getCache().getEntry(property);
+	}
+	
+	@Override
+	public HashMap<String, String> get(ConfigFileHandle file, Iterable<String> properties) {
+		return file.getCache().getEntries(properties);
+	}
+	
+	@Override
+	public Map<String, String> getAll(ConfigFileHandle file) {
+		return file.getCache().getEntries();
+	}
+	
+	@Override
+	public boolean refresh(ConfigFileHandle file) {
+		return file.getCache().refresh();
+	}
+	
+	@Override
+	public void invalidate(ConfigFileHandle file) {
+		file.getCache().invalidate();
+	}
+	
+	@Override
+	public boolean exists(ConfigFileHandle file) {
+		return file.getFile().exists();
+	}
+	
+	/**
+	 * Appends the updates to the file's journal in journal mode, otherwise folds in any journal left
+	 * from journal mode and rewrites the file with them.
+	 * 
+	 */
+	
+	@Override
+	public boolean write(ConfigFileHandle file, Map<String, String> updates) {
+		ConfigJournal journal = file.getJournal();
+		if(journal.isEnabled()) {
+			return journal.append(updates);
+		}
+		return (!journal.exists() || journal.compact()) && ConfigFileWriter.rewrite(file.getFile(), updates);
+	}
+	
+	/**
+	 * In journal mode there is nothing to get ready, the journal is appended to on install;
+	 * otherwise the file's new contents are written to its temporary file, renamed over it on install.
+	 * 
+	 */
+	
+	@Override
+	public Prepared prepare(final ConfigFileHandle file, final Map<String, String> updates) throws IOException{
+		final ConfigJournal journal = file.getJournal();
+		if(journal.isEnabled()) {
+			return new Prepared() {
+				@Override
+				public void install() throws IOException{
+					if(!journal.append(updates)) {
+						throw new IOException("journal append failed");
+					}
+				}
+				
+				@Override
+				public void discard() {
+					return;
+				}
+			};
+		}
+		if(journal.exists() && !journal.compact()) {
+			throw new IOException("Could not compact journal of config file: " + file.getPath());
+		}
+		final Path temp = ConfigFileWriter.prepare(file.getFile(), updates);
+		return new Prepared() {
+			@Override
+			public void install() throws IOException{
+				ConfigFileWriter.install(temp, file.getFile());
+			}
+			
+			@Override
+			public void discard() {
+				try {
+					Files.deleteIfExists(temp);
+				}
+				catch(IOException e) {
+					return;
+				}
+			}
+		};
+	}
+	
+	@Override
+	public HashMap<String, String> ensure(ConfigFileHandle file, String description, Map<String, String> defaults, Map<String, String> updates, boolean replaceNull) throws IOException{
+		ConfigJournal journal = file.getJournal();
+		if(journal.exists() && !journal.compact()) {
+			throw new IOException("Could not compact journal of config file: " + file.getPath());
+		}
+		Files.createDirectories(file.getPath().getParent());
+		return ConfigFileWriter.ensureEntries(file.getFile(), description, defaults, updates, replaceNull);
+	}
+	
+}
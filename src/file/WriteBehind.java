@@ -0,0 +1,333 @@
+package file;
+
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledFuture;
+import java.util.concurrent.ThreadFactory;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * 
+ * WriteBehind holds the property writes for a single config file that have been accepted but not
+ * yet written to disk, so that many quick updates (a user hammering a toggle button, e.g.) become
+ * one rewrite of the file instead of one rewrite per click.
+ * 
+ * Writes are 'staged' into a dirty map (later writes to the same property replace earlier ones) and
+ * the whole map is written out as one rewrite once the requested delay has passed or the map holds
+ * the requested number of properties, whichever happens first. flush() writes it out immediately,
+ * and everything still pending is flushed when the program shuts down.
+ * 
+ * Reads of the config file check getPending() first so that staged values are visible straight away.
+ * The values of ConfigTransactions that have been committed but not yet written are held here as
+ * well (see hold), so every reader sees them from the moment the transaction is committed.
+ * 
+ * There is one WriteBehind per config file, owned by its ConfigFileHandle, and the delay and batch
+ * size set through configure() apply to every accessor of that file.
+ * 
+ */
+
+public class WriteBehind {
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	private static final ScheduledExecutorService scheduler = Executors.newSingleThreadScheduledExecutor(new ThreadFactory() {
+		@Override
+		public Thread newThread(Runnable r) {
+			Thread t = new Thread(r, "config-write-behind");
+			t.setDaemon(true);
+			return t;
+		}
+	});
+	
+	static {
+		Runtime.getRuntime().addShutdownHook(new Thread("config-write-behind-shutdown") {
+			@Override
+			public void run() {
+				flushAll();
+				ConfigJournal.compactAll();
+				ConfigFileWriter.syncAll();
+			}
+		});
+	}
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private ConfigFileHandle handle;
+	/** Milliseconds a write may wait to be batched with later writes, or FileAccess.WRITE_IMMEDIATE*/
+	private int delay;
+	/** Number of pending property writes that causes a batch to be written without waiting for 'delay'*/
+	private int batch;
+	/** Property writes accepted but not yet handed to the writer*/
+	private LinkedHashMap<String, String> pending;
+	/** Property writes currently being written to disk; still visible to reads until the write finishes*/
+	private Map<String, String> inflight;
+	/** Values of committed ConfigTransactions not yet written, the newest for each property; see hold*/
+	private LinkedHashMap<String, String> committing;
+	
+	private ScheduledFuture<?> scheduled;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	WriteBehind(ConfigFileHandle fileHandle) {
+		handle = fileHandle;
+		delay = FileAccess.WRITE_IMMEDIATE;
+		pending = new LinkedHashMap<String, String>();
+		committing = new LinkedHashMap<String, String>();
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	/**
+	 * Adds a property write to the dirty map; if this fills the map to the batch size the flush is
+	 * started right away, otherwise one is scheduled 'delay' milliseconds from the first pending write.
+	 * 
+	 * In immediate mode nothing is scheduled; the caller is expected to flush() straight after.
+	 * 
+	 * @param property
+	 * @param value
+	 */
+	
+	public synchronized void stage(String property, String value) {
+		pending.remove(property);
+		pending.put(property, value);
+		committing.remove(property);
+		handle.bumpVersion();
+		if(delay == FileAccess.WRITE_IMMEDIATE) {
+			return;
+		}
+		if(batch > 0 && pending.size() >= batch) {
+			schedule(0);
+		}
+		else if(scheduled == null) {
+			schedule(delay);
+		}
+	}
+	
+	/**
+	 * Sets how long writes to this file may wait to be batched together (FileAccess.WRITE_IMMEDIATE
+	 * to write on every stage) and how many pending writes force a batch out early; leaving
+	 * write-behind mode flushes anything already waiting.
+	 * 
+	 * @param delayMillis
+	 * @param batchSize
+	 */
+	
+	public void configure(int delayMillis, int batchSize) {
+		synchronized(this) {
+			delay = delayMillis < 0 ? FileAccess.WRITE_IMMEDIATE : delayMillis;
+			batch = batchSize;
+		}
+		if(isImmediate()) {
+			flush();
+		}
+	}
+	
+	/**
+	 * Writes every pending property to the config file as a single rewrite (or a single append to
+	 * its journal, in journal mode), blocking until it is on disk; returns false if the write failed (the writes stay pending to be tried again).
+	 * 
+	 * @return
+	 */
+	
+	public boolean flush() {
+		Map<String, String> writes;
+		boolean out;
+		synchronized(this) {
+			if(scheduled != null) {
+				scheduled.cancel(false);
+				scheduled = null;
+			}
+			if(pending.isEmpty()) {
+				return true;
+			}
+		}
+		handle.lockWrite();
+		try {
+			synchronized(this) {
+				if(scheduled != null) {
+					scheduled.cancel(false);
+					scheduled = null;
+				}
+				if(pending.isEmpty()) {
+					return true;
+				}
+				writes = pending;
+				inflight = writes;
+				pending = new LinkedHashMap<String, String>();
+			}
+			out = handle.getStore().write(handle, writes);
+			if(out) {
+				handle.markWritten();
+			}
+		}
+		finally {
+			handle.unlockWrite();
+		}
+		handle.getStore().invalidate(handle);
+		synchronized(this) {
+			inflight = null;
+			if(!out) {
+				requeue(writes);
+			}
+		}
+		return out;
+	}
+	
+	/**
+	 * Takes every pending write out of the dirty map (cancelling any scheduled flush) for the caller
+	 * to write itself; called by ConfigTransaction with the file's write lock held, so that older
+	 * pending values can't be flushed over the transaction's newer ones afterwards.
+	 * 
+	 * @return
+	 */
+	
+	synchronized Map<String, String> takePending() {
+		if(scheduled != null) {
+			scheduled.cancel(false);
+			scheduled = null;
+		}
+		Map<String, String> out = pending;
+		pending = new LinkedHashMap<String, String>();
+		return out;
+	}
+	
+	/**
+	 * Holds the values of a ConfigTransaction that has just been committed until it has written them,
+	 * so that reads return them in the meantime; they replace any value pending for the same property,
+	 * which the transaction's write would overwrite anyway.
+	 * 
+	 * A property staged afterwards (or held by a later transaction) is no longer held for this one,
+	 * so its write leaves that property out (see getHeld) rather than writing over the newer value.
+	 * 
+	 * @param values
+	 */
+	
+	synchronized void hold(Map<String, String> values) {
+		for(Map.Entry<String, String> e : values.entrySet()) {
+			pending.remove(e.getKey());
+			committing.remove(e.getKey());
+			committing.put(e.getKey(), e.getValue());
+		}
+		if(!values.isEmpty()) {
+			handle.bumpVersion();
+		}
+	}
+	
+	/**
+	 * Drops the values held for a ConfigTransaction once it has written them (or failed to), leaving
+	 * any a later transaction holds for the same properties.
+	 * 
+	 * @param values
+	 */
+	
+	synchronized void settle(Map<String, String> values) {
+		boolean changed = false;
+		for(Map.Entry<String, String> e : values.entrySet()) {
+			changed = committing.remove(e.getKey(), e.getValue()) || changed;
+		}
+		if(changed) {
+			handle.bumpVersion();
+		}
+	}
+	
+	/**
+	 * Puts writes that failed to reach the file back in the dirty map, behind any newer value
+	 * already staged for the same property.
+	 * 
+	 * @param writes
+	 */
+	
+	synchronized void requeue(Map<String, String> writes) {
+		for(Map.Entry<String, String> e : writes.entrySet()) {
+			if(!pending.containsKey(e.getKey())) {
+				pending.put(e.getKey(), e.getValue());
+			}
+		}
+	}
+	
+	public static void flushAll() {
+		for(ConfigFileHandle cfh : ConfigFileHandle.getAll()) {
+			cfh.getWriter().flush();
+		}
+	}
+	
+	private void schedule(int delayMillis) {
+		if(scheduled != null) {
+			scheduled.cancel(false);
+		}
+		scheduled = scheduler.schedule(new Runnable() {
+			@Override
+			public void run() {
+				flush();
+			}
+		}, delayMillis < 0 ? 0 : delayMillis, TimeUnit.MILLISECONDS);
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Returns the value most recently written to the property that has not yet reached the file,
+	 * or null if there isn't one (in which case the file's contents are current).
+	 * 
+	 * @param property
+	 * @return
+	 */
+	
+	public synchronized String getPending(String property) {
+		String out = pending.get(property);
+		if(out == null) {
+			out = committing.get(property);
+		}
+		if(out == null && inflight != null) {
+			out = inflight.get(property);
+		}
+		return out;
+	}
+	
+	/**
+	 * Returns a copy of every property write that has not yet reached the file.
+	 * 
+	 * @return
+	 */
+	
+	public synchronized HashMap<String, String> getAllPending() {
+		HashMap<String, String> out = new HashMap<String, String>();
+		if(inflight != null) {
+			out.putAll(inflight);
+		}
+		out.putAll(committing);
+		out.putAll(pending);
+		return out;
+	}
+	
+	/**
+	 * Returns those of a committed ConfigTransaction's values that are still held for it, i.e. that
+	 * nothing newer has replaced since it was committed; these are what it writes.
+	 * 
+	 * @param values
+	 * @return
+	 */
+	
+	synchronized HashMap<String, String> getHeld(Map<String, String> values){
+		HashMap<String, String> out = new HashMap<String, String>();
+		for(Map.Entry<String, String> e : values.entrySet()) {
+			if(committing.containsKey(e.getKey()) && Objects.equals(e.getValue(), committing.get(e.getKey()))) {
+				out.put(e.getKey(), e.getValue());
+			}
+		}
+		return out;
+	}
+	
+	public synchronized boolean hasPending() {
+		return !pending.isEmpty();
+	}
+	
+	public synchronized boolean isImmediate() {
+		return delay == FileAccess.WRITE_IMMEDIATE;
+	}
+	
+}
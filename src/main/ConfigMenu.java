@@ -1,4 +1,10 @@
 package main;
+import java.util.Map;
+import java.util.Optional;
+
+import file.ConfigStore;
+import file.ConfigTransaction;
+import file.ConfigTree;
 import file.FileAccess;
 import file.SpecificFileAccessor;
 import page.FeatureLoader;
@@ -78,6 +84,19 @@ public class ConfigMenu {
 		establishConfigPropertiesPath(pathToConfigFile, FileAccess.CONFIG_FILE_NAME, properties);
 	}
 	
+	/**
+	 * Creates every config folder and file declared in the ConfigTree that doesn't exist yet and adds
+	 * any declared properties missing from existing files, working on many files at once; see ConfigTree.
+	 * Returns false if any file couldn't be created or patched.
+	 * 
+	 * @param declaration
+	 * @return
+	 */
+	
+	public boolean establishConfigTree(ConfigTree declaration) {
+		return declaration.apply();
+	}
+	
 	/**
 	 * Function to assign a specific value to a property in the config file specified by the
 	 * path and file name arguments.
@@ -106,18 +125,125 @@ public class ConfigMenu {
 		configData.getConfigAccessor(pathToConfigFile).assignData(property, value);
 	}
 	
+	/**
+	 * Function to give every property in defaults its default value in the config file specified by
+	 * the path and file name arguments, if the property is missing or 'null' there; the file is read
+	 * once and written once for all of them, where checkInitializeProperty and initializeConfigPropertyValue
+	 * read or rewrite it for each property.
+	 * 
+	 * @param pathToConfigFile
+	 * @param fileName
+	 * @param defaults
+	 * @return
+	 */
+	
+	public boolean ensureDefaults(String pathToConfigFile, String fileName, Map<String, String> defaults) {
+		return configData.getConfigAccessor(pathToConfigFile, fileName).ensureDefaults(defaults);
+	}
+	
+	public boolean ensureDefaults(String pathToConfigFile, Map<String, String> defaults) {
+		return ensureDefaults(pathToConfigFile, FileAccess.CONFIG_FILE_NAME, defaults);
+	}
+	
 	public boolean checkInitializeProperty(String pathToConfigFile, String property) {
 		return checkInitializeProperty(pathToConfigFile, FileAccess.CONFIG_FILE_NAME, property);
 	}
 	
 	public boolean checkInitializeProperty(String pathToConfigFile, String fileName, String property) {
-		try {
-			return !configData.getConfigAccessor(pathToConfigFile, fileName).accessData(property).equals("null");
-		} catch (Exception e) {
-			System.err.println("Accessed property: " + property + " in config file: " + pathToConfigFile + "/" + fileName+ " failed to be found.");
-			e.printStackTrace();
-			return false;
-		}
+		Optional<String> value = configData.getConfigAccessor(pathToConfigFile, fileName).findData(property);
+		return value.isPresent() && !value.get().equals("null");
+	}
+	
+	/**
+	 * Puts config file writes made through this ConfigMenu into write-behind mode: writes are held
+	 * in memory and written as one rewrite per file after delayMillis, or once batchSize writes are
+	 * waiting. Applies to each config file as pages and accessors for it are next requested, so call
+	 * it before adding pages.
+	 * 
+	 * Pending writes are flushed on shutdown, or on demand via flushConfigWrites().
+	 * 
+	 * @param delayMillis
+	 * @param batchSize
+	 */
+	
+	public void setWriteBehind(int delayMillis, int batchSize) {
+		configData.setWriteBehind(delayMillis, batchSize);
+	}
+	
+	/**
+	 * Sets how config files used through this ConfigMenu store updates; FileAccess.STORAGE_REWRITE
+	 * (the default) or FileAccess.STORAGE_JOURNAL. Like setWriteBehind, call it before adding pages.
+	 * 
+	 * @param mode
+	 */
+	
+	public void setStorageMode(int mode) {
+		configData.setStorageMode(mode);
+	}
+	
+	/**
+	 * Sets how config files used through this ConfigMenu are held in memory; FileAccess.READ_EAGER
+	 * (the default) or FileAccess.READ_MAPPED for very large files. Call it before adding pages.
+	 * 
+	 * @param mode
+	 */
+	
+	public void setReadMode(int mode) {
+		configData.setReadMode(mode);
+	}
+	
+	/**
+	 * Sets whether config files used through this ConfigMenu keep a binary snapshot beside them to
+	 * load from at start up in place of parsing them (see FileAccess.setSnapshots); off by default.
+	 * Call it before adding pages.
+	 * 
+	 * @param snapshot
+	 */
+	
+	public void setSnapshots(boolean snapshot) {
+		configData.setSnapshots(snapshot);
+	}
+	
+	/**
+	 * Sets whether config files used through this ConfigMenu are locked against other programs
+	 * editing them at the same time (see ConfigFileLock); off by default. Call it before adding pages.
+	 * 
+	 * @param lock
+	 */
+	
+	public void setProcessLocking(boolean lock) {
+		configData.setProcessLocking(lock);
+	}
+	
+	/**
+	 * Sets where config files used through this ConfigMenu are kept (see ConfigStore): the text files
+	 * on disk by default, or for instance a MemoryConfigStore to run the same pages without touching
+	 * the disk. Call it before adding pages.
+	 * 
+	 * @param store
+	 */
+	
+	public void setConfigStore(ConfigStore store) {
+		configData.setConfigStore(store);
+	}
+	
+	/**
+	 * Begins a ConfigTransaction on the calling thread: every config property write made on this
+	 * thread until it is committed is held and then written together, one rewrite per file.
+	 * 
+	 * @return
+	 */
+	
+	public ConfigTransaction beginTransaction() {
+		return FileAccess.beginTransaction();
+	}
+	
+	public void flushConfigWrites() {
+		FileAccess.flushAll();
+	}
+	
+	public void setWriteDurability(int policy) {
+		FileAccess.setDurability(policy);
 	}
 	
 	public void resizeConfigWindow(int width, int height) {
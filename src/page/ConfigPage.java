@@ -1,8 +1,12 @@
 package page;
 import java.util.ArrayList;
 import java.util.HashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.function.BiConsumer;
 
+import file.ConfigTransaction;
 import file.SpecificFileAccessor;
+import file.StagedFileAccess;
 import input.CustomEventReceiver;
 import page.behavior.Behavior;
 import page.behavior.FeatureAdderAccessor;
@@ -10,6 +14,7 @@ import page.behavior.FeatureReader;
 import page.behavior.FeatureRemoverAccessor;
 import page.behavior.PropertyAccessor;
 import page.behavior.SideboardAccessor;
+import page.behavior.StagingAccessor;
 import page.feature.Feature;
 import page.feature.FeatureComposite;
 import page.feature.aspect.FeatureAspect;
@@ -69,10 +74,20 @@ public class ConfigPage implements FeatureContentReader, AspectAssigner{
 	private FeatureComposite hold;
 	/** Each page is tied to a specific config file for simplicity which certain Behaviors will update*/
 	private SpecificFileAccessor sfa;
+	/** Staging layer over the page's config file once staged edits are turned on, null otherwise*/
+	private StagedFileAccess staged;
 	
 	private HashMap<Integer, ArrayList<Behavior>> behaviorCodeMap;
 	
 	private volatile HandlePanel panel;
+	/** Set to have the next draw release every Feature's elements and build the page again*/
+	private volatile boolean refresh;
+	/** Whether only the rows in view are drawn, see setVirtualized*/
+	private boolean virtualized;
+	/** How far down the page (in pixels) the view is scrolled when virtualized*/
+	private volatile int scrollOffset;
+	/** References of Features to mark dirty, queued from any thread and marked on the next draw*/
+	private ConcurrentLinkedQueue<String> dirty;
 	
 //---  Constructors   -------------------------------------------------------------------------
 	
@@ -82,6 +97,7 @@ public class ConfigPage implements FeatureContentReader, AspectAssigner{
 		layout = new FeatureComposite(title, 0, 0);
 		sidedeck = new ArrayList<Feature>();
 		behaviorCodeMap = new HashMap<Integer, ArrayList<Behavior>>();
+		dirty = new ConcurrentLinkedQueue<String>();
 		panel = new HandlePanel(0, 0, 100, 100);
 		CustomEventReceiver cer = new CustomEventReceiver() {
 
@@ -90,6 +106,14 @@ public class ConfigPage implements FeatureContentReader, AspectAssigner{
 				processEvent(code);
 				super.clickEvent(code, x, y, type);
 			}
+			
+			@Override
+			public void mouseWheelEvent(int rotation) {
+				if(virtualized) {
+					setScrollOffset(scrollOffset + rotation * FeatureComposite.ROW_HEIGHT);
+				}
+				super.mouseWheelEvent(rotation);
+			}
 		};
 		panel.setPriority(5);
 		panel.setEventReceiver(cer);
@@ -105,33 +129,139 @@ public class ConfigPage implements FeatureContentReader, AspectAssigner{
 	 * We may have a header and footer on the page, too, which would need to be drawn before/after
 	 * the FeatureComposite layout, which would impact the - wait, that can just be a Feature prefab.
 	 * 
+	 * The panel is never cleared as a whole: each Feature keeps its elements until it is marked
+	 * dirty, moves or is resized (which a resize of the page does to all of them), or is removed
+	 * from the page, and only then are its elements built again (see Feature.handleDraw).
+	 * 
+	 * When virtualized, only the rows in view are drawn (FeatureComposite.drawVisible); the elements
+	 * of rows that scroll out are released, and those in view are built again at their new positions.
+	 * 
+	 * Features queued to be marked dirty (see markDirty) are marked first, here on the drawing thread.
+	 * 
 	 */
 	
 	public void draw(int x, int y, int wid, int hei) {
 		if(panel.getWidth() != wid || panel.getHeight() != hei) {
 			panel.resize(wid, hei);
-			panel.removeAllElements();
+		}
+		if(refresh) {
+			refresh = false;
+			layout.releaseElements(panel);
 		}
 		if(panel.getPanelXLocation() != x || panel.getPanelYLocation() != y) {
 			panel.setLocation(x, y);
 		}
-		layout.handleDraw(panel, 0, 0, wid, hei);
+		markQueuedDirty();
+		if(virtualized) {
+			int offset = Math.max(0, Math.min(scrollOffset, layout.getLayoutHeight() - hei));
+			layout.drawVisible(panel, wid, offset, hei);
+		}
+		else {
+			layout.handleDraw(panel, 0, 0, wid, hei);
+		}
 	}
 	
 	public void allocateRowProportions(int[] rowProps) {
 		layout.populateRows(rowProps);
 	}
 
+	/**
+	 * Runs the Behaviors tied to the code value in the order they were assigned; Behaviors that do
+	 * file I/O are started with performActionAsync so the input thread doesn't wait on the disk.
+	 * 
+	 * Rather than the whole page being rebuilt, the Feature each Behavior refers to is marked dirty
+	 * (again once its I/O finishes) so only its elements are built again; Features bound to config
+	 * properties pick up changed values themselves, by the property's version, and Features added or
+	 * removed by a Behavior are drawn or released by the FeatureComposite.
+	 * 
+	 * All of the Behaviors run inside one ConfigTransaction, so the config writes they make are
+	 * written together (one rewrite per file) once they've all run, on the config I/O executor; if
+	 * one of them throws, the transaction is rolled back and none of their writes are made.
+	 * 
+	 * @param in
+	 */
+	
 	private void processEvent(int in) {
 		ArrayList<Behavior> behav = behaviorCodeMap.get(in);
 		if(behav != null) {
-			for(Behavior b : behav) {
-				if(!b.performAction()){
-					System.err.println("Warning! Behavior failed to occur referencing Feature: " + b.getFeatureReference());
+			ConfigTransaction transaction = ConfigTransaction.begin();
+			try {
+				runBehaviors(behav);
+			}
+			catch(RuntimeException e) {
+				transaction.rollback();
+				throw e;
+			}
+			transaction.commitAsync().whenComplete(new BiConsumer<Boolean, Throwable>() {
+				@Override
+				public void accept(Boolean result, Throwable error) {
+					if(error != null || !result) {
+						System.err.println("Warning! Config changes made by Behaviors for code: " + in + " failed to be written");
+					}
+					for(Behavior b : behav) {
+						markDirty(b);
+					}
+				}
+			});
+		}
+	}
+	
+	private void runBehaviors(ArrayList<Behavior> behav) {
+		for(final Behavior b : behav) {
+			if(b.performsIO()) {
+				b.performActionAsync().whenComplete(new BiConsumer<Boolean, Throwable>() {
+					@Override
+					public void accept(Boolean result, Throwable error) {
+						if(error != null || !result) {
+							warnFailure(b);
+						}
+						markDirty(b);
+					}
+				});
+			}
+			else if(!b.performAction()){
+				warnFailure(b);
+			}
+			markDirty(b);
+		}
+	}
+	
+	/**
+	 * Queues the Feature the Behavior refers to to be marked dirty on the next draw; called from
+	 * the input thread and from the threads completing config writes, so the layout isn't looked
+	 * at here.
+	 * 
+	 * @param b
+	 */
+	
+	private void markDirty(Behavior b) {
+		if(b.getFeatureReference() != null) {
+			dirty.add(b.getFeatureReference());
+		}
+	}
+	
+	/**
+	 * Marks each queued Feature dirty, wherever it is in the page's layout (nothing if it isn't in
+	 * it, such as a sideboard Feature not yet added).
+	 * 
+	 */
+	
+	private void markQueuedDirty() {
+		String ref = dirty.poll();
+		while(ref != null) {
+			FeatureComposite owner = layout.findPossessingComposite(ref);
+			if(owner != null) {
+				Feature f = owner.findFeature(ref);
+				if(f != null) {
+					f.markDirty();
 				}
 			}
+			ref = dirty.poll();
 		}
-		panel.removeAllElements();
+	}
+	
+	private void warnFailure(Behavior b) {
+		System.err.println("Warning! Behavior failed to occur referencing Feature: " + b.getFeatureReference());
 	}
 	
 	public void assignBehavior(int codeIn, Behavior behav) {
@@ -178,10 +308,44 @@ public class ConfigPage implements FeatureContentReader, AspectAssigner{
 		}
 	}
 
+	/**
+	 * Turns on staged edits for this page: Features and Behaviors bound to the config file from here
+	 * on write to an in-memory StagedFileAccess over it, and show its staged values, instead of the
+	 * file; the staged edits are only written (one rewrite of the file) by an Apply Behavior, and can
+	 * be dropped by a Revert Behavior (see BehaviorStagedEdits).
+	 * 
+	 * Only applies to Features added after this is called, so call it before adding any.
+	 * 
+	 */
+	
+	public void enableStagedEdits() {
+		if(staged == null) {
+			staged = new StagedFileAccess(sfa);
+			sfa = staged;
+		}
+	}
+	
+	/**
+	 * Reads every listed property of this page's config file in one pass over the file so that
+	 * binding Features to them afterwards is answered from memory rather than each bind re-reading
+	 * the file; with no properties listed, the whole file is read.
+	 * 
+	 * @param properties
+	 * @return
+	 */
+	
+	public HashMap<String, String> preloadProperties(String ... properties) {
+		return properties.length == 0 ? sfa.accessAll() : sfa.accessData(properties);
+	}
+	
 	public void conferFileAccess(PropertyAccessor in, String property) {
 		in.assignPropertyAccessor(sfa.getPropertyAccessor(property));
 	}
 	
+	public void conferStagingAccess(StagingAccessor in) {
+		in.assignStagedFileAccess(staged);
+	}
+	
 	public void conferFeatureAccess(FeatureReader in) {
 		in.assignFeatureContentReader(this);
 	}
@@ -282,6 +446,14 @@ public class ConfigPage implements FeatureContentReader, AspectAssigner{
 		return title;
 	}
 	
+	public boolean getStagedEditsStatus() {
+		return staged != null;
+	}
+	
+	public int getScrollOffset() {
+		return scrollOffset;
+	}
+	
 	public HandlePanel getPanelReference() {
 		return panel;
 	}
@@ -295,6 +467,33 @@ public class ConfigPage implements FeatureContentReader, AspectAssigner{
 		return null;
 	}
 	
+//---  Setter Methods   -----------------------------------------------------------------------
+	
+	/**
+	 * Turns virtualized drawing on or off: when on, only the rows of the page within view (and a
+	 * couple either side) are drawn each frame, scrolled by the mouse wheel or setScrollOffset, so
+	 * pages with thousands of rows cost no more per frame than ones that fit on the screen.
+	 * 
+	 * @param in
+	 */
+	
+	public void setVirtualized(boolean in) {
+		virtualized = in;
+		scrollOffset = 0;
+		refresh = true;
+	}
+	
+	/**
+	 * Sets how far down the page (in pixels) the view is scrolled when virtualized; kept within
+	 * the page when drawn.
+	 * 
+	 * @param in
+	 */
+	
+	public void setScrollOffset(int in) {
+		scrollOffset = Math.max(0, in);
+	}
+	
 //---  Support Methods   ----------------------------------------------------------------------
 	
 	/**
@@ -2,8 +2,10 @@ package page;
 
 import java.awt.Color;
 import java.util.ArrayList;
+import java.util.HashSet;
 
 import input.CustomEventReceiver;
+import page.feature.Feature;
 import visual.composite.HandlePanel;
 
 /**
@@ -41,12 +43,15 @@ public class ConfigSelectorPanel extends HandlePanel{
 	private volatile PromptConfigSwap pcs;
 	
 	private boolean redraw;
+	/** Tabs whose selected state changed, so only their buttons are built again on the next draw*/
+	private HashSet<String> changedTabs;
 	
 //---  Constructors   -------------------------------------------------------------------------
 	
 	public ConfigSelectorPanel(int x, int y, int width, int height, PromptConfigSwap configSwap) {
 		super(x, y, width, height);
 		configNames = new ArrayList<String>();
+		changedTabs = new HashSet<String>();
 		pcs = configSwap;
 		this.setPriority(1);
 		CustomEventReceiver cer = new CustomEventReceiver() {
@@ -57,7 +62,6 @@ public class ConfigSelectorPanel extends HandlePanel{
 				
 				if(select >= 0 && select < configNames.size()) {
 					pcs.updateActivePage(configNames.get(select));
-					removeAllElements();
 				}
 				setAttention(false);
 				super.clickEvent(code, x, y, type);
@@ -79,9 +83,21 @@ public class ConfigSelectorPanel extends HandlePanel{
 		redraw = true;
 	}
 	
+	/**
+	 * Only the buttons of the tab that was active and the one that now is are rebuilt (to change
+	 * their colors), not the whole bar.
+	 * 
+	 * @param in
+	 */
+	
 	public void setActiveConfig(String in) {
-		currActive = in;
-		redraw = true;
+		synchronized(changedTabs) {
+			if(currActive != null) {
+				changedTabs.add(currActive);
+			}
+			changedTabs.add(in);
+			currActive = in;
+		}
 	}
 	
 	public void removeConfigPageName(String name) {
@@ -99,6 +115,14 @@ public class ConfigSelectorPanel extends HandlePanel{
 			removeAllElements();
 			redraw = false;
 		}
+		synchronized(changedTabs) {
+			for(String s : changedTabs) {
+				for(String part : Feature.TEXT_BUTTON_PARTS) {
+					removeElement("button_" + s + part);
+				}
+			}
+			changedTabs.clear();
+		}
 		int widSpace = this.getWidth() / configNames.size();
 		boolean needScroll = widSpace < MIN_TAB_SPACE;
 		widSpace = needScroll ? MIN_TAB_SPACE : widSpace;
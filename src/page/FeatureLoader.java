@@ -15,6 +15,7 @@ import page.behavior.BehaviorConfigToggle;
 import page.behavior.BehaviorConfigUpdate;
 import page.behavior.BehaviorOpenFileSelect;
 import page.behavior.BehaviorRemoveFeature;
+import page.behavior.BehaviorStagedEdits;
 import page.feature.Feature;
 
 /**
@@ -79,6 +80,39 @@ public class FeatureLoader {
 		page.allocateRowProportions(rowHorizontalProportions);
 	}
 	
+	/**
+	 * Reads the properties that the Features you are about to add will be bound to (or the whole
+	 * config file if none are listed) in a single pass, so that adding N property-bound Features
+	 * costs one read of the file instead of N.
+	 * 
+	 * @param properties
+	 */
+	
+	public void preloadProperties(String ... properties) {
+		page.preloadProperties(properties);
+	}
+	
+	/**
+	 * Turns on staged edits for the page (see ConfigPage.enableStagedEdits): edits made on it are held
+	 * in memory until a button bound with addBehaviorApplyStaged is clicked, or dropped by one bound
+	 * with addBehaviorRevertStaged. Call before adding any Features.
+	 * 
+	 */
+	
+	public void enableStagedEdits() {
+		page.enableStagedEdits();
+	}
+	
+	/**
+	 * Turns on virtualized drawing for the page (see ConfigPage.setVirtualized): only the rows in
+	 * view are drawn, scrolled with the mouse wheel. Meant for pages with more rows than fit on screen.
+	 * 
+	 */
+	
+	public void enableVirtualizedDraw() {
+		page.setVirtualized(true);
+	}
+	
 //---  Mode Setting   -------------------------------------------------------------------------
 	
 	/**
@@ -210,6 +244,24 @@ public class FeatureLoader {
 		
 	}
 	
+	public void addBehaviorApplyStaged(int codeMatch, String featureReference) {
+		addBehaviorStagedEdits(codeMatch, featureReference, BehaviorStagedEdits.CHOICE_APPLY);
+	}
+	
+	public void addBehaviorRevertStaged(int codeMatch, String featureReference) {
+		addBehaviorStagedEdits(codeMatch, featureReference, BehaviorStagedEdits.CHOICE_REVERT);
+	}
+	
+	private void addBehaviorStagedEdits(int codeMatch, String featureReference, int choice) {
+		if(!page.getStagedEditsStatus()) {
+			System.err.println("Error: Staged edits Behavior for code: " + codeMatch + " added to a page without staged edits enabled");
+			return;
+		}
+		BehaviorStagedEdits bse = new BehaviorStagedEdits(featureReference, choice);
+		page.conferStagingAccess(bse);
+		page.assignBehavior(codeMatch, bse);
+	}
+	
 	public void addBehaviorFileSelect(int codeMatch, String featureReference, String propertyUpdate) {
 		BehaviorOpenFileSelect bofs = new BehaviorOpenFileSelect(featureReference);
 		page.conferFileAccess(bofs, propertyUpdate);
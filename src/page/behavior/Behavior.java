@@ -1,5 +1,7 @@
 package page.behavior;
 
+import java.util.concurrent.CompletableFuture;
+
 /**
  * 
  * Behavior objects are attached to certain Features to denote what to do when they are activated.
@@ -26,6 +28,13 @@ package page.behavior;
  * 
  * Behaviors can be prompted to do their action, but will define what that entails in each subclass.
  * 
+ * Behaviors that read or write files say so via performsIO(); the ConfigPage runs those through
+ * performActionAsync() so that a slow disk doesn't stall the thread handling clicks.
+ * 
+ * All the Behaviors bound to one code value run inside one ConfigTransaction (see ConfigPage), so
+ * any config writes they make through a FileAccess are written together once they have all run;
+ * a Behavior that begins a ConfigTransaction of its own joins that one.
+ * 
  */
 
 public abstract class Behavior {
@@ -39,6 +48,31 @@ public abstract class Behavior {
 	
 	public abstract boolean performAction();
 	
+	/**
+	 * Starts this Behavior's action without waiting on any file I/O it does; the returned future
+	 * completes with what performAction would have returned.
+	 * 
+	 * Anything touching the page (reading a Feature's contents, e.g.) still happens on the calling
+	 * thread before this returns; by default the whole action is just run there.
+	 * 
+	 * @return
+	 */
+	
+	public CompletableFuture<Boolean> performActionAsync(){
+		return CompletableFuture.completedFuture(performAction());
+	}
+	
+	/**
+	 * Returns whether this Behavior's action reads or writes files and so should be run with
+	 * performActionAsync rather than performAction.
+	 * 
+	 * @return
+	 */
+	
+	public boolean performsIO() {
+		return false;
+	}
+	
 	public String getFeatureReference() {
 		return featureIdentifier;
 	}
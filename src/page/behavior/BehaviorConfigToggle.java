@@ -1,11 +1,11 @@
 package page.behavior;
 
+import java.util.concurrent.CompletableFuture;
+
 public class BehaviorConfigToggle extends BehaviorConfigUpdate{
 
 	private String[] toggleValues;
 	
-	private int index;
-	
 	private boolean advancing;
 	
 	public BehaviorConfigToggle(String featureReference, boolean increment, String ... toggleList) throws Exception {
@@ -15,28 +15,42 @@ public class BehaviorConfigToggle extends BehaviorConfigUpdate{
 	}
 	
 	public void initialize() throws Exception {
-		String currVal = fileManip.getConfigPropertyValue();
-		index = indexOf(toggleValues, currVal);
-		if(index == -1) {
-			index = 0;
-			performAction();
+		if(currentIndex() == -1) {
+			fileManip.setConfigPropertyValue(toggleValues[(advancing ? 1 : toggleValues.length - 1) % toggleValues.length]);
 		}
 	}
 	
-	private int indexOf(String[] vals, String key) {
-		for(int i = 0; i < vals.length; i++) {
-			if(vals[i].equals(key)) {
-				return i;
-			}
-		}
-		return -1;
+	@Override
+	public boolean performAction() {
+		return fileManip.setConfigPropertyValue(advance());
 	}
 	
 	@Override
-	public boolean performAction() {
-		index += advancing ? 1 : -1;
+	public CompletableFuture<Boolean> performActionAsync() {
+		return fileManip.setConfigPropertyValueAsync(advance());
+	}
+	
+	/**
+	 * Steps from the property's current value rather than a remembered position, so the toggle
+	 * stays in line with edits made elsewhere (the opposite toggle, a staged edit being reverted,
+	 * the file being changed); the typed read makes this a cached lookup.
+	 * 
+	 * @return
+	 */
+	
+	private String advance() {
+		int index = currentIndex() + (advancing ? 1 : -1);
 		index = index < 0 ? toggleValues.length - 1 : index;
-		return fileManip.setConfigPropertyValue(toggleValues[index % toggleValues.length]);
+		return toggleValues[index % toggleValues.length];
+	}
+	
+	private int currentIndex() {
+		try {
+			return fileManip.findConfigPropertyValue().isPresent() ? fileManip.getEnumIndex(toggleValues) : -1;
+		}
+		catch(Exception e) {
+			return -1;
+		}
 	}
 
 }
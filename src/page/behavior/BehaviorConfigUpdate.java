@@ -1,5 +1,7 @@
 package page.behavior;
 
+import java.util.concurrent.CompletableFuture;
+
 import file.SpecificPropertyAccessor;
 import page.FeatureContentReader;
 
@@ -30,6 +32,16 @@ public class BehaviorConfigUpdate extends Behavior implements PropertyAccessor,
 		return fileManip.setConfigPropertyValue(getFeatureData());
 	}
 	
+	@Override
+	public CompletableFuture<Boolean> performActionAsync() {
+		return fileManip.setConfigPropertyValueAsync(getFeatureData());
+	}
+	
+	@Override
+	public boolean performsIO() {
+		return true;
+	}
+	
 	private String getFeatureData() {
 		return fcr.getFeatureDataContents(getFeatureReference());
 	}
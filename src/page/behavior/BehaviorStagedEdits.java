@@ -0,0 +1,82 @@
+package page.behavior;
+
+import java.util.concurrent.CompletableFuture;
+
+import file.StagedFileAccess;
+
+/**
+ * 
+ * Sub-class of Behavior for the Apply and Revert buttons of a ConfigPage with staged edits turned on
+ * (see ConfigPage.enableStagedEdits): CHOICE_APPLY writes every staged edit on the page to its config
+ * file at once, CHOICE_REVERT drops them so the page shows the file's values again.
+ * 
+ */
+
+public class BehaviorStagedEdits extends Behavior implements StagingAccessor{
+	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	public final static int CHOICE_APPLY = 0;
+	
+	public final static int CHOICE_REVERT = 1;
+	
+//---  Instance Variables   -------------------------------------------------------------------
+	
+	private int choice;
+	
+	private StagedFileAccess staging;
+	
+//---  Constructors   -------------------------------------------------------------------------
+	
+	/**
+	 * 
+	 * @param featureReference - String name of the Feature (usually the button) this Behavior is for
+	 * @param choiceAction - int value referring to the constants CHOICE_APPLY and CHOICE_REVERT
+	 */
+	
+	public BehaviorStagedEdits(String featureReference, int choiceAction) {
+		super(featureReference);
+		choice = choiceAction;
+	}
+	
+//---  Operations   ---------------------------------------------------------------------------
+	
+	@Override
+	public boolean performAction() {
+		if(staging == null) {
+			return false;
+		}
+		if(choice == CHOICE_APPLY) {
+			return staging.apply();
+		}
+		staging.revert();
+		return true;
+	}
+	
+	@Override
+	public CompletableFuture<Boolean> performActionAsync() {
+		if(staging == null || choice != CHOICE_APPLY) {
+			return super.performActionAsync();
+		}
+		return staging.applyAsync();
+	}
+	
+	@Override
+	public boolean performsIO() {
+		return choice == CHOICE_APPLY;
+	}
+	
+//---  Injections   ---------------------------------------------------------------------------
+	
+	@Override
+	public void assignStagedFileAccess(StagedFileAccess stagedAccess) {
+		staging = stagedAccess;
+	}
+	
+//---  Getter Methods   -----------------------------------------------------------------------
+	
+	public int getChoice() {
+		return choice;
+	}
+	
+}
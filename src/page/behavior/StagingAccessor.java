@@ -0,0 +1,9 @@
+package page.behavior;
+
+import file.StagedFileAccess;
+
+public interface StagingAccessor {
+	
+	public abstract void assignStagedFileAccess(StagedFileAccess staging);
+	
+}
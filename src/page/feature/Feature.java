@@ -1,5 +1,7 @@
 package page.feature;
 
+import java.util.HashSet;
+
 import page.feature.aspect.FeatureAspect;
 import visual.composite.HandlePanel;
 
@@ -49,10 +51,24 @@ import visual.composite.HandlePanel;
  *  - update config file data with data referenced from another Feature
  *   - prefab composites of 'label' - 'data entry' - 'submit button' simplify this
  * 
+ * Redrawing:
+ *  - a Feature's HandlePanel elements are kept between frames rather than the page clearing the panel
+ *  - each element a Feature draws is named through track(), so the Feature knows which are its own
+ *    (for composite handlers such as handleTextButton, the names of the elements the handler makes)
+ *  - handleDraw releases them (and its FeatureAspects') when the Feature has been marked dirty or is
+ *    drawn somewhere else than last time, so only that Feature's elements are built again
+ * 
  */
 
 public abstract class Feature {
 
+//---  Constants   ----------------------------------------------------------------------------
+	
+	/** Suffixes HandlePanel.handleTextButton appends to the name it is given for the elements it makes*/
+	public static final String[] TEXT_BUTTON_PARTS = new String[] {"_rect", "_text", "_butt"};
+	/** Suffixes HandlePanel.handleImageButton appends to the name it is given for the elements it makes*/
+	public static final String[] IMAGE_BUTTON_PARTS = new String[] {"_image", "_button"};
+	
 //---  Instance Variables   -------------------------------------------------------------------
 	
 	private FeatureAspect wrap;
@@ -63,6 +79,20 @@ public abstract class Feature {
 	private int horzProportion;
 	/** int value to denote how many rows beneath the starting row this Feature should draw into*/
 	private int vertProportion;
+	/** Names of the HandlePanel elements this Feature has drawn since they were last released*/
+	private HashSet<String> elements;
+	/** Set to have this Feature's elements released and drawn again on its next draw*/
+	private volatile boolean dirty;
+	/** Whether the Feature has elements on a HandlePanel, drawn at drawnX, drawnY, drawnWidth, drawnHeight*/
+	private boolean drawn;
+	
+	private int drawnX;
+	
+	private int drawnY;
+	
+	private int drawnWidth;
+	
+	private int drawnHeight;
 	
 //---  Constructors   -------------------------------------------------------------------------
 	
@@ -70,6 +100,7 @@ public abstract class Feature {
 		title = inTitle;
 		horzProportion = proportionHorizontal;
 		vertProportion = proportionVertical;
+		elements = new HashSet<String>();
 	}
 	
 //---  Operations   ---------------------------------------------------------------------------
@@ -95,6 +126,9 @@ public abstract class Feature {
 	 * Public draw function that instructs FeatureAspects to draw themselves then
 	 * calls this object's draw() function that is defined for each subclass of Feature.
 	 * 
+	 * If the Feature was marked dirty or is being drawn at a different place or size than last
+	 * time, its old elements are released first so they are built again from scratch.
+	 * 
 	 * @param hp
 	 * @param x
 	 * @param y
@@ -103,12 +137,93 @@ public abstract class Feature {
 	 */
 	
 	public void handleDraw(HandlePanel hp, int x, int y, int width, int height) { 
+		if(drawn && (dirty || x != drawnX || y != drawnY || width != drawnWidth || height != drawnHeight)) {
+			releaseElements(hp);
+		}
+		dirty = false;
+		drawn = true;
+		drawnX = x;
+		drawnY = y;
+		drawnWidth = width;
+		drawnHeight = height;
 		if(wrap != null) {
 			wrap.draw(hp, x, y, width, height);
 		}
 		draw(hp, x, y, width, height);
 	}
 	
+	/**
+	 * Removes every element this Feature and its FeatureAspects have on the HandlePanel, for when
+	 * it is no longer drawn there (or is about to be drawn again from scratch).
+	 * 
+	 * @param hp
+	 */
+	
+	public void releaseElements(HandlePanel hp) {
+		if(!drawn) {
+			return;
+		}
+		removeElements(hp);
+		if(wrap != null) {
+			wrap.release(hp, drawnX, drawnY, drawnWidth, drawnHeight);
+		}
+		drawn = false;
+	}
+	
+	/**
+	 * Marks the Feature so that its next draw releases its elements and builds them again; safe to
+	 * call from any thread.
+	 * 
+	 */
+	
+	public void markDirty() {
+		dirty = true;
+	}
+	
+	/**
+	 * Records an element name as belonging to this Feature and returns it; subclasses name every
+	 * element they draw through this so releaseElements can remove them.
+	 * 
+	 * @param name
+	 * @return
+	 */
+	
+	protected String track(String name) {
+		elements.add(name);
+		return name;
+	}
+	
+	/**
+	 * As track(name), for the HandlePanel handlers that make several elements out of the name they're
+	 * given (handleTextButton, handleImageButton): records name plus each of the suffixes the handler
+	 * appends (TEXT_BUTTON_PARTS, IMAGE_BUTTON_PARTS), as those are the elements on the panel.
+	 * 
+	 * @param name
+	 * @param parts
+	 * @return
+	 */
+	
+	protected String track(String name, String[] parts) {
+		for(String part : parts) {
+			elements.add(name + part);
+		}
+		return name;
+	}
+	
+	/**
+	 * Removes this Feature's own elements (not its FeatureAspects') from the HandlePanel, for a
+	 * subclass rebuilding them in the middle of drawing.
+	 * 
+	 * @param hp
+	 */
+	
+	protected void removeElements(HandlePanel hp) {
+		for(String name : elements) {
+			hp.removeElement(name);
+		}
+		elements.clear();
+	}
+	
 	/**
 	 * Function to wrap a provided FeatureAspect object to the aspects associated with
 	 * this Feature object; FeatureAspects are attached drawing instructions independent
@@ -184,4 +299,15 @@ public abstract class Feature {
 		return vertProportion;
 	}
 	
+	/**
+	 * Returns whether this Feature has elements on the HandlePanel it is drawn to, i.e. whether it
+	 * has been drawn since they were last released.
+	 * 
+	 * @return
+	 */
+	
+	protected boolean hasElements() {
+		return !elements.isEmpty();
+	}
+	
 }
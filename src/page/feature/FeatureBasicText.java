@@ -43,24 +43,33 @@ public class FeatureBasicText extends Feature{
 	
 //---  Operations   ---------------------------------------------------------------------------
 
+	/**
+	 * The text is measured and its elements built only when they aren't already on the panel: the
+	 * first draw, after the text changes (setShowText), or after handleDraw has released them.
+	 * 
+	 */
+	
 	@Override
 	public void draw(HandlePanel hp, int x, int y, int width, int height) {
-		int fontHeight = hp.getTextHeight(DEFAULT_FONT);
 		if(replace) {
 			replace = false;
-			hp.removeElementPrefixed(basicName(x, y));
+			removeElements(hp);
 		}
+		if(hasElements()) {
+			return;
+		}
+		int fontHeight = hp.getTextHeight(DEFAULT_FONT);
 		ElementLoader el = hp.accessElementLoader();
 		int textWid = hp.getTextWidth(text, DEFAULT_FONT);
 		int rows = textWid / width;
 		if(rows * fontHeight >= height) {
-			el.addText(basicName(x, y), 5, "basic", x - width / 2 + X_OFFSET, y - height / 2, width - (SCROLLBAR_WIDTH + 3), height, text + "\n .", DEFAULT_FONT, false, false, false);
+			el.addText(track(basicName(x, y)), 5, "basic", x - width / 2 + X_OFFSET, y - height / 2, width - (SCROLLBAR_WIDTH + 3), height, text + "\n .", DEFAULT_FONT, false, false, false);
 			hp.addElementToGroup(basicName(x, y), "group_" + x + "_" + y);
 			hp.setGroupDrawOutsideWindow("group_" + x + "_" + y, false);
-			hp.handleScrollbar(basicName(x, y) + "_scroll", "basic", "group_" + x + "_" + y, 2, x + width / 2 - SCROLLBAR_WIDTH, y - height / 2, SCROLLBAR_WIDTH, height, y - height / 2, height, true);
+			hp.handleScrollbar(track(basicName(x, y) + "_scroll"), "basic", "group_" + x + "_" + y, 2, x + width / 2 - SCROLLBAR_WIDTH, y - height / 2, SCROLLBAR_WIDTH, height, y - height / 2, height, true);
 		}
 		else {
-			el.addText(basicName(x, y), 5, "basic", x, y, width, height, text, DEFAULT_FONT, centerX, centerY, true);	
+			el.addText(track(basicName(x, y)), 5, "basic", x, y, width, height, text, DEFAULT_FONT, centerX, centerY, true);	
 		}
 	}
 	
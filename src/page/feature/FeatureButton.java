@@ -48,7 +48,7 @@ public class FeatureButton extends Feature{
 	public void draw(HandlePanel hp, int x, int y, int width, int height) {
 		int useWid = width * 9 / 10;
 		int useHei = height * 7 / 10;
-		hp.handleTextButton("button_" + display + "_" + codeValue, "basic", 5, x, y, useWid, useHei, null, display, codeValue, COLOR_BACKING, COLOR_OUTLINE);
+		hp.handleTextButton(track("button_" + display + "_" + codeValue, TEXT_BUTTON_PARTS), "basic", 5, x, y, useWid, useHei, null, display, codeValue, COLOR_BACKING, COLOR_OUTLINE);
 	}
 
 }
@@ -25,51 +25,54 @@ public class FeatureCheckbox extends Feature implements PropertyAccessor {
 	
 	private int code;
 	
-	private boolean lastSeen;
+	/** Version of the property (see SpecificPropertyAccessor.getVersion) the checkbox was last drawn from*/
+	private long drawnVersion;
+	
+	private boolean checked;
 	
 	public FeatureCheckbox(String inTitle, int proportionHorizontal, int proportionVertical, int codeVal) {
 		super(inTitle, proportionHorizontal, proportionVertical);
 		code = codeVal;
+		drawnVersion = -1;
 	}
 
 	@Override
 	protected void draw(HandlePanel hp, int x, int y, int width, int height) {
-		boolean condition = false;
-		try {
-			String val = getDataContent();
-			if (val.equals("true")) {
-				condition = true;
-			}
-			else if(!val.equals("false")) {
-				System.err.println("Feature Checkbox: " + getTitle() + " associated to propert value that is not 'true' or 'false', instead is: " + val);
-			}
-		} catch (Exception e) {
-			System.err.println("Error in accessing property by Checkbox: " + getTitle());
-			e.printStackTrace();
-		}
-		if(condition != lastSeen) {
-			lastSeen = condition;
-			hp.removeElement(getTitle() + "_checkbox");
+		long version = propertyAccess.getVersion();
+		if(version != drawnVersion) {
+			drawnVersion = version;
+			checked = isChecked();
+			hp.removeElement(getTitle() + "_checkbox_" + x + "_" + y);
 		}
+		boolean condition = checked;
 		int size = width < height ? width : height;
 		size /= 3;
-		hp.handleRectangle(getTitle() + "_checkbox_" + x + "_" + y, "basic", 3, x, y, size, size, condition ? INSIDE_COLOR_TRUE : INSIDE_COLOR_FALSE, BORDER_COLOR);
-		hp.handleButton(getTitle() + "_checkbox_button_" + x + "_" + y, "basic", 3, x, y, size, size, code);
+		hp.handleRectangle(track(getTitle() + "_checkbox_" + x + "_" + y), "basic", 3, x, y, size, size, condition ? INSIDE_COLOR_TRUE : INSIDE_COLOR_FALSE, BORDER_COLOR);
+		hp.handleButton(track(getTitle() + "_checkbox_button_" + x + "_" + y), "basic", 3, x, y, size, size, code);
 	}
 
 	@Override
 	public String getDataContent() {
-		try {
-			return propertyAccess.getConfigPropertyValue().equals("true")+"";
-		} catch (Exception e) {
-			e.printStackTrace();
-			return null;
-		}
+		return propertyAccess.findConfigPropertyValue().isPresent() ? Boolean.toString(isChecked()) : null;
 	}
 
 	@Override
 	public void assignPropertyAccessor(SpecificPropertyAccessor sfa) {
 		propertyAccess = sfa;
+		drawnVersion = -1;
+	}
+	
+	private boolean isChecked() {
+		String value = propertyAccess.findConfigPropertyValue().orElse(null);
+		if(value != null && !value.equals("true") && !value.equals("false")) {
+			System.err.println("Feature Checkbox: " + getTitle() + " associated to propert value that is not 'true' or 'false', instead is: " + value);
+		}
+		try {
+			return value != null && propertyAccess.getBoolean();
+		}
+		catch(Exception e) {
+			return false;
+		}
 	}
 
 }
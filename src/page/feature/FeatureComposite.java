@@ -1,6 +1,12 @@
 package page.feature;
 
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.IdentityHashMap;
+import java.util.Map;
+import java.util.Set;
 
 import visual.composite.HandlePanel;
 
@@ -22,12 +28,37 @@ import visual.composite.HandlePanel;
  * 
  * That can be a setting sometime, maybe?
  * 
+ * Every Feature in the layout is indexed by its title (except spacers and fixtures, whose titles
+ * repeat), recording the row, index in that row and column it is at; the index is kept up to date
+ * by every add and remove, so finding a Feature doesn't scan the rows. Each row also keeps the
+ * column each of its Features starts at, so a column is found in a row by binary search. Each FeatureComposite also
+ * knows its parent and which of the composites nested beneath it (at any depth) holds each title,
+ * so findPossessingComposite answers from any level without recursing.
+ * 
+ * Changing the title of a Feature after it is added (setTitle) isn't seen by the index.
+ * 
+ * Where each Feature is drawn is worked out once and kept until the layout changes (the same
+ * add and remove paths that keep the index up to date drop it) or it is drawn at another width.
+ * 
+ * The layout is changed on the input thread and drawn on the drawing thread, so every change to
+ * it is made holding the composite's monitor, and the drawing thread holds the same monitor while
+ * it reads the layout (layOut, releaseElements, lookups). A composite's changes may take the
+ * monitors of the composites above it (to update their 'nested' titles), never those beneath it,
+ * and the drawing thread only ever holds one, so the locks are always taken in the same order.
+ * 
  * TODO: Non duplicate adding so AddBehavior can't do redundant feature adding.
  * 
  */
 
 public class FeatureComposite extends Feature implements FeatureAdder, FeatureRemover{
 	
+//---  Constants   ----------------------------------------------------------------------------
+	
+	/** Height of each row in pixels*/
+	public static final int ROW_HEIGHT = 40; //TODO: oh, there is a config file for this re: how it should draw(fonts, sizing, etc.)
+	/** Rows drawn above and below the viewport by drawVisible, so a small scroll has them ready*/
+	private static final int OVERSCAN_ROWS = 2;
+	
 //---  Instance Variables   -------------------------------------------------------------------
 	
 	private ArrayList<ArrayList<Feature>> layout;
@@ -35,6 +66,24 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 	private boolean initiated;
 	
 	private ArrayList<FeatureComposite> subLayouts;
+	/** The FeatureComposite this one is laid out in, null if it isn't in one*/
+	private FeatureComposite parent;
+	/** Where each (indexed) Feature directly in this composite's layout is, by title*/
+	private HashMap<String, Location> index;
+	/** The row number and column sums of each row list in 'layout'*/
+	private IdentityHashMap<ArrayList<Feature>, RowSums> rowSums;
+	/** Titles of the Features in composites nested beneath this one, to the composite directly holding each*/
+	private HashMap<String, FeatureComposite> nested;
+	/** Drawing geometry as of the last layOut; null when the layout has changed since (set from the input thread)*/
+	private volatile Geometry geometry;
+	/** Features drawn by the last drawVisible, whose elements are released if they leave the viewport*/
+	private Feature[] shown;
+	/** The drawOrder 'shown' was taken from, and the index in it of its first Feature*/
+	private Feature[] shownOrder;
+	
+	private int shownFrom;
+	/** Features taken out of the layout whose elements are still to be released on the next draw*/
+	private ArrayList<Feature> removed;
 	
 //---  Constructors   -------------------------------------------------------------------------
 	
@@ -42,33 +91,166 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 		super(inTitle, proportionHorizontal, proportionVertical);
 		layout = new ArrayList<ArrayList<Feature>>();
 		subLayouts = new ArrayList<FeatureComposite>();
+		index = new HashMap<String, Location>();
+		rowSums = new IdentityHashMap<ArrayList<Feature>, RowSums>();
+		nested = new HashMap<String, FeatureComposite>();
+		removed = new ArrayList<Feature>();
+		shown = new Feature[0];
 		initiated = false;
 	}
 
 //---  Operations   ---------------------------------------------------------------------------
 	
+	/**
+	 * Draws each Feature in the layout at its rectangle, which are only worked out again (see layOut)
+	 * after the layout changes or when drawn at a different width than last time.
+	 * 
+	 */
+	
 	@Override
 	public void draw(HandlePanel hp, int x, int y, int width, int height) {
-
-		int currY = 0;
-		for(ArrayList<Feature> arr : layout) {
-			int totHorizProp = 0;
-			int maxVertProp = 1;
-			for(Feature f : arr) {
-				totHorizProp += f.getHorizontalProportion();
-				maxVertProp = f.getVerticalProportion() > maxVertProp ? f.getVerticalProportion() : maxVertProp;
+		releaseRemoved(hp);
+		Geometry g = geometry;
+		if(g == null || width != g.width) {
+			g = layOut(width);
+		}
+		for(int i = 0; i < g.order.length; i++) {
+			int at = i * 4;
+			g.order[i].handleDraw(hp, g.rects[at], g.rects[at + 1], g.rects[at + 2], g.rects[at + 3]);
+		}
+	}
+	
+	/**
+	 * Draws only the rows that come within the viewport, the 'height' pixels of the layout starting
+	 * 'top' pixels down, plus OVERSCAN_ROWS either side; they are drawn moved up by 'top' so the
+	 * viewport's top is at the panel's top. Rows are found from the cached geometry, so the cost of a
+	 * frame depends on how many rows fit in the viewport rather than on how many the layout has.
+	 * 
+	 * Features drawn by the last call that aren't drawn by this one (their rows left the viewport,
+	 * or they moved out of it) have their elements released; those still in view but moved by the
+	 * scroll release and rebuild their own in handleDraw.
+	 * 
+	 * @param hp
+	 * @param width
+	 * @param top
+	 * @param height
+	 */
+	
+	public void drawVisible(HandlePanel hp, int width, int top, int height) {
+		releaseRemoved(hp);
+		Geometry g = geometry;
+		if(g == null || width != g.width) {
+			g = layOut(width);
+		}
+		int first = Math.max(0, top / ROW_HEIGHT - (g.tallest - 1) - OVERSCAN_ROWS);
+		int last = Math.min(g.firsts.length - 1, (top + height) / ROW_HEIGHT + 1 + OVERSCAN_ROWS);
+		int from = first < last ? g.firsts[first] : 0;
+		int to = first < last ? g.firsts[last] : 0;
+		if(g.order != shownOrder || from != shownFrom || to != shownFrom + shown.length) {
+			Feature[] now = Arrays.copyOfRange(g.order, from, to);
+			Set<Feature> kept = Collections.newSetFromMap(new IdentityHashMap<Feature, Boolean>());
+			kept.addAll(Arrays.asList(now));
+			for(Feature f : shown) {
+				if(!kept.contains(f)) {
+					f.releaseElements(hp);
+				}
+			}
+			shown = now;
+			shownOrder = g.order;
+			shownFrom = from;
+		}
+		for(int i = from; i < to; i++) {
+			int at = i * 4;
+			g.order[i].handleDraw(hp, g.rects[at], g.rects[at + 1] - top, g.rects[at + 2], g.rects[at + 3]);
+		}
+	}
+	
+	/**
+	 * Releases the elements of this composite's Features (including those nested in composites in
+	 * it), as well as any of its own.
+	 * 
+	 */
+	
+	@Override
+	public void releaseElements(HandlePanel hp) {
+		ArrayList<Feature> all = new ArrayList<Feature>();
+		synchronized(this) {
+			for(ArrayList<Feature> row : layout) {
+				all.addAll(row);
 			}
-			int widAlloc = width / totHorizProp;
-			int heiAlloc = 40; //TODO: oh, there is a config file for this re: how it should draw(fonts, sizing, etc.)
+		}
+		for(Feature f : all) {
+			f.releaseElements(hp);
+		}
+		releaseRemoved(hp);
+		super.releaseElements(hp);
+	}
+	
+	/**
+	 * Releases the elements of Features taken out of the layout since the last draw; called on the
+	 * drawing thread, as Behaviors may remove Features from another.
+	 * 
+	 * @param hp
+	 */
+	
+	private void releaseRemoved(HandlePanel hp) {
+		synchronized(removed) {
+			for(Feature f : removed) {
+				f.releaseElements(hp);
+			}
+			removed.clear();
+		}
+	}
+	
+	/**
+	 * Works out the rectangle (center x, center y, width, height) of every Feature in the layout
+	 * at the given width: each row splits the width between its Features by their horizontal
+	 * proportions. Rows are a fixed height (ROW_HEIGHT), so the height being drawn at doesn't matter.
+	 * 
+	 * The layout is read holding the composite's monitor, so no change is made to it part way
+	 * through. The result is built whole before it is published to 'geometry', and is returned for
+	 * the draw to use, as the input thread may drop 'geometry' again while the draw is under way.
+	 * 
+	 * @param width
+	 * @return
+	 */
+	
+	private synchronized Geometry layOut(int width) {
+		int count = 0;
+		for(ArrayList<Feature> arr : layout) {
+			count += arr.size();
+		}
+		Feature[] order = new Feature[count];
+		int[] rects = new int[count * 4];
+		int[] firsts = new int[layout.size() + 1];
+		int maxVertProp = 1;
+		int i = 0;
+		int currY = 0;
+		for(int row = 0; row < firsts.length - 1; row++) {
+			ArrayList<Feature> arr = layout.get(row);
+			firsts[row] = i;
+			int totHorizProp = effectiveRowWidth(row);
+			int widAlloc = totHorizProp == 0 ? 0 : width / totHorizProp;
+			int heiAlloc = ROW_HEIGHT;
 			int currX = 0;
 			for(Feature f : arr) {
+				maxVertProp = Math.max(maxVertProp, f.getVerticalProportion());
 				int heiUse = heiAlloc * f.getVerticalProportion();
 				int widUse = widAlloc * f.getHorizontalProportion();
-				f.handleDraw(hp, currX + widUse / 2, currY + heiUse / 2, widUse, heiUse);
+				order[i] = f;
+				rects[i * 4] = currX + widUse / 2;
+				rects[i * 4 + 1] = currY + heiUse / 2;
+				rects[i * 4 + 2] = widUse;
+				rects[i * 4 + 3] = heiUse;
 				currX += widAlloc * f.getHorizontalProportion();
+				i++;
 			}
 			currY += heiAlloc;
 		}
+		firsts[firsts.length - 1] = i;
+		Geometry out = new Geometry(order, rects, firsts, maxVertProp, width);
+		geometry = out;
+		return out;
 	}
 
 	/**
@@ -82,7 +264,7 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 	 * @param rowHorizontalProps
 	 */
 	
-	public void populateRows(int[] rowHorizontalProps) {
+	public synchronized void populateRows(int[] rowHorizontalProps) {
 		initiated = true;
 		for(int i = 0; i < rowHorizontalProps.length; i++) {
 			this.addFeature(new FeatureSpacing(FeatureSpacing.CAN_REMOVE, rowHorizontalProps[i], 1), i, 0);
@@ -135,7 +317,7 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 	 * @return
 	 */
 	
-	public boolean addFeature(Feature newFeature, int row, int column) {
+	public synchronized boolean addFeature(Feature newFeature, int row, int column) {
 		//System.out.println("---add feature: " + newFeature.getTitle() + ", " + row + ", " + column);
 		if(row < 0 || !initiated) {
 			return false;
@@ -144,7 +326,9 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 			return false;
 		}
 		while(layout.size() <= row) {
-			layout.add(new ArrayList<Feature>());
+			ArrayList<Feature> newRow = new ArrayList<Feature>();
+			rowSums.put(newRow, new RowSums(layout.size()));
+			layout.add(newRow);
 		}
 		if(column < 0) {
 			return false;
@@ -153,16 +337,14 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 		int vertProp = newFeature.getVerticalProportion();
 		// If we're adding to a row and our position is past the end of it, buffer space before for effective positioning
 		if(rowSize <= column) {
+			int from = layout.get(row).size();
 			if(column - rowSize > 0) {
 				Feature sp = new FeatureSpacing(FeatureSpacing.CAN_REMOVE, column - rowSize, 1);
 				layout.get(row).add(sp);
 			}
 			layout.get(row).add(newFeature);
-			if(newFeature.getDataContent() == null) {
-				//TODO: This is bad and I don't like doing it but not sure what a better way is
-				//To clarify, casting to a specific type while using generics everywhere else
-				subLayouts.add((FeatureComposite)newFeature);
-			}
+			place(newFeature, layout.get(row));
+			reindexRow(row, from);
 		}
 		// Otherwise, just add it at that spot; need to check for overlap with a spacing, should replace any blank spacing
 		else {
@@ -190,36 +372,23 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 	 * Returns false if the eatSpacing function returns false or if we didn't find where to
 	 * insert the new feature within the list iteration, which whouldn't 
 	 * 
+	 * The position is found by binary search over the row's column sums, which are brought up
+	 * to date for the changed part of the row afterwards.
+	 * 
 	 * @param row
 	 * @param desiredColumn
 	 * @param newFeature
 	 * @return
 	 */
 	
- 	private boolean insertFeature(int row, int desiredColumn, Feature newFeature) {
-		//System.out.println("Row: " + layout.get(row));
-		ArrayList<Feature> list = layout.get(row);
-		/*
-		String use = "";
-		for(Feature f : list) {
-			use = use + " " + f.getHorizontalProportion();
-		}
-		System.out.println(use);
-		*/
-		int currCol = 0;
-		int ind = 0;
-		for(int i = 0; i < list.size(); i++) {
-			Feature f = list.get(i);
-			//System.out.println(" " + currCol + " " + ind);
-			// If we have found the index at which point we are at or over the desired column position...
-			if(desiredColumn <= currCol) {
-				//  Call function for identifying the feature at this index and splitting it apart if able to
-				return splitSpacer(desiredColumn, currCol, ind, row, newFeature);
-			}
-			currCol += f.getHorizontalProportion();
-			ind += 1;
-		}
-		return splitSpacer(desiredColumn, currCol, ind, row, newFeature);
+	private boolean insertFeature(int row, int desiredColumn, Feature newFeature) {
+		RowSums sums = rowSums.get(layout.get(row));
+		// Index of the first Feature at or past the desired column position (or the end of the row)
+		int ind = sums.firstAtOrAfter(desiredColumn, layout.get(row).size() + 1);
+		int currCol = sums.starts[ind];
+		boolean out = splitSpacer(desiredColumn, currCol, ind, row, newFeature);
+		reindexRow(row, Math.max(0, ind - 1));
+		return out;
 	}
 	
 	/**
@@ -276,6 +445,7 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 		}
 		// Then add the Feature and trim any following Features to reserve that space if able to
 		list.add(ind, newFeature);
+		place(newFeature, list);
 		int horz = newFeature.getHorizontalProportion();
 		return eatSpacing(row, ind, horz);
 	}
@@ -319,8 +489,8 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 				}
 				else {
 					removalAmount -= horz;
-					i--;
 					list.remove(i);
+					i--;
 				}
 			}
 			else {
@@ -333,6 +503,54 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 	//-- Feature Finding  -------------------------------------
 	
 	public int findFeatureRow(String identifier) {
+		if(!isIndexed(identifier)) {
+			return scanFeatureRow(identifier);
+		}
+		Location at = index.get(identifier);
+		return at == null ? -1 : rowSums.get(at.row).number;
+	}
+	
+	public int findFeatureColumn(String identifier) {
+		if(!isIndexed(identifier)) {
+			return scanFeatureColumn(identifier);
+		}
+		Location at = locate(identifier);
+		return at == null ? -1 : at.column;
+	}
+	
+	/**
+	 * Returns the FeatureComposite, this one or one nested beneath it at any depth, whose layout
+	 * has the Feature with the given title in it; null if none do.
+	 * 
+	 * @param identifier
+	 * @return
+	 */
+	
+	public FeatureComposite findPossessingComposite(String identifier) {
+		if(!isIndexed(identifier)) {
+			return scanPossessingComposite(identifier);
+		}
+		synchronized(this) {
+			return ownerOf(identifier);
+		}
+	}
+	
+	/**
+	 * Returns this composite if the (indexed) title is directly in it, or the composite beneath it
+	 * recorded as holding it; without taking the monitor, for the thread changing the layout.
+	 * 
+	 * @param identifier
+	 * @return
+	 */
+	
+	private FeatureComposite ownerOf(String identifier) {
+		if(index.containsKey(identifier)) {
+			return this;
+		}
+		return nested.get(identifier);
+	}
+	
+	private int scanFeatureRow(String identifier) {
 		int row = 0;
 		for(ArrayList<Feature> arr : layout) {
 			for(Feature f : arr) {
@@ -345,7 +563,7 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 		return -1;	
 	}
 	
-	public int findFeatureColumn(String identifier) {
+	private int scanFeatureColumn(String identifier) {
 		for(ArrayList<Feature> arr : layout) {
 			int col = 0;
 			for(Feature f : arr) {
@@ -358,12 +576,16 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 		return -1;	
 	}
 	
-	public FeatureComposite findPossessingComposite(String identifier) {
-		if(findFeature(identifier) != null) {
-			return this;
+	private FeatureComposite scanPossessingComposite(String identifier) {
+		ArrayList<FeatureComposite> subs;
+		synchronized(this) {
+			if(findFeature(identifier) != null) {
+				return this;
+			}
+			subs = new ArrayList<FeatureComposite>(subLayouts);
 		}
-		for(FeatureComposite fc : subLayouts) {
-			FeatureComposite out = fc.findPossessingComposite(identifier);
+		for(FeatureComposite fc : subs) {
+			FeatureComposite out = fc.scanPossessingComposite(identifier);
 			if(out != null) {
 				return out;
 			}
@@ -383,11 +605,17 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 			return findPossessingComposite(referenceFeature).addFeatureNewRow(referenceFeature, feat, above);
 		}
 
-		ArrayList<Feature> featRow = new ArrayList<Feature>();
-		featRow.add(feat);
-		int newInd = findFeatureRow(referenceFeature) + (above ? 0 : 1);
-		layout.add(newInd, featRow);
-		return true;
+		synchronized(this) {
+			ArrayList<Feature> featRow = new ArrayList<Feature>();
+			featRow.add(feat);
+			int newInd = findFeatureRow(referenceFeature) + (above ? 0 : 1);
+			layout.add(newInd, featRow);
+			rowSums.put(featRow, new RowSums(newInd));
+			place(feat, featRow);
+			renumberRows(newInd);
+			reindexRow(newInd, 0);
+			return true;
+		}
 	}
 	
 	@Override
@@ -400,23 +628,25 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 			return findPossessingComposite(referenceFeature).addFeatureInRow(referenceFeature, feat, insert, after);
 		}		
 		
-		int column = findFeatureColumn(referenceFeature);
-		int row = findFeatureRow(referenceFeature);
-		if(after) {
-			column += layout.get(row).get(findFeatureIndex(row, column)).getHorizontalProportion();
-		}
-		if(!insert) {
-			return addFeature(feat, row, column);
-		}
-		else {
-			int posit = findFeatureIndex(row, column);
-			if(posit == -1) {
-				layout.get(row).add(feat);
+		synchronized(this) {
+			int column = findFeatureColumn(referenceFeature);
+			int row = findFeatureRow(referenceFeature);
+			if(after) {
+				column += layout.get(row).get(findFeatureIndex(row, column)).getHorizontalProportion();
+			}
+			if(!insert) {
+				return addFeature(feat, row, column);
 			}
 			else {
+				int posit = findFeatureIndex(row, column);
+				if(posit == -1) {
+					posit = layout.get(row).size();
+				}
 				layout.get(row).add(posit, feat);
+				place(feat, layout.get(row));
+				reindexRow(row, posit);
+				return true;
 			}
-			return true;
 		}
 	}
 	
@@ -427,24 +657,29 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 		if(this.findFeature(referenceFeature) == null) {
 			return findPossessingComposite(referenceFeature).removeFeatureRow(referenceFeature, insertSpacing);
 		}
-		int row = findFeatureRow(referenceFeature);
-		try {
-			if(!insertSpacing) {
-				if(row >= 0 && row < layout.size()) {
-					layout.remove(row);
+		synchronized(this) {
+			int row = findFeatureRow(referenceFeature);
+			try {
+				if(!insertSpacing) {
+					if(row >= 0 && row < layout.size()) {
+						releaseAll(layout.get(row));
+						rowSums.remove(layout.remove(row));
+						renumberRows(row);
+						return true;
+					}
+					return false;
+				}
+				else {
+					int wid = effectiveRowWidth(row);
+					releaseAll(layout.get(row));
+					layout.get(row).clear();
+					addFeature(new FeatureSpacing(FeatureSpacing.CAN_REMOVE, wid, 1), row, 0);
 					return true;
 				}
+			} catch (Exception e) {
+				e.printStackTrace();
 				return false;
 			}
-			else {
-				int wid = effectiveRowWidth(row);
-				layout.get(row).clear();
-				addFeature(new FeatureSpacing(FeatureSpacing.CAN_REMOVE, wid, 1), row, 0);
-				return true;
-			}
-		} catch (Exception e) {
-			e.printStackTrace();
-			return false;
 		}
 	}
 	
@@ -457,36 +692,244 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 			}
 			return parent.removeFeature(referenceFeature, replace);
 		}
-		int row = findFeatureRow(referenceFeature);
-		int column = findFeatureColumn(referenceFeature);
-		ArrayList<Feature> list = layout.get(row);
-		int posit = findFeatureIndex(row, column);
-		if(posit == -1) {
-			return false;
+		synchronized(this) {
+			int row = findFeatureRow(referenceFeature);
+			int column = findFeatureColumn(referenceFeature);
+			ArrayList<Feature> list = layout.get(row);
+			int posit = findFeatureIndex(row, column);
+			if(posit == -1) {
+				return false;
+			}
+			if(!replace) {
+				release(list.remove(posit));
+				reindexRow(row, posit);
+				return true;
+			}
+			else {
+				int wid = list.get(posit).getHorizontalProportion();
+				release(list.remove(posit));
+				reindexRow(row, posit);
+				return addFeature(new FeatureSpacing(FeatureSpacing.CAN_REMOVE, wid, 1), row, column);
+			}
 		}
-		if(!replace) {
-			list.remove(findFeatureIndex(row, column));
-			return true;
+	}
+	
+	//-- Title Index  -----------------------------------------
+	
+	/**
+	 * Adds a Feature just put into the row list to the index (if its title is indexed), announces
+	 * it to the composites above this one and, if it's a FeatureComposite, adopts it as a sub-layout.
+	 * Its index and column are filled in by locate when first looked up.
+	 * 
+	 * @param f
+	 * @param list
+	 */
+	
+	private void place(Feature f, ArrayList<Feature> list) {
+		if(!isIndexed(f.getTitle())) {
+			return;
 		}
-		else {
-			int wid = list.get(posit).getHorizontalProportion();
-			list.remove(posit);
-			return addFeature(new FeatureSpacing(FeatureSpacing.CAN_REMOVE, wid, 1), row, column);
+		Location at = new Location(f);
+		at.row = list;
+		index.put(f.getTitle(), at);
+		announce(parent, f.getTitle(), this);
+		if(f instanceof FeatureComposite) {
+			adopt((FeatureComposite)f);
 		}
 	}
 	
-	private int findFeatureIndex(int row, int column) {
+	/**
+	 * Brings the row's column sums up to date after anything in it from the given index on has been
+	 * added, removed or resized (everything before it is left as it was), and marks the positions
+	 * recorded for its Features from there on as out of date. The drawing geometry is dropped, to
+	 * be laid out again on the next draw.
+	 * 
+	 * Only the sums are walked here, so building a row is cheap; the index's positions are fixed up
+	 * once, by locate, when one of them is next needed.
+	 * 
+	 * @param row
+	 * @param from
+	 */
+	
+	private void reindexRow(int row, int from) {
+		dropGeometry();
 		ArrayList<Feature> list = layout.get(row);
-		int posit = 0;
-		int index = 0;
+		RowSums sums = rowSums.get(list);
+		if(sums.starts.length <= list.size()) {
+			sums.starts = Arrays.copyOf(sums.starts, Math.max(list.size() + 1, sums.starts.length * 2));
+		}
+		int column = sums.starts[from];
+		for(int i = from; i < list.size(); i++) {
+			sums.starts[i] = column;
+			column += list.get(i).getHorizontalProportion();
+		}
+		sums.starts[list.size()] = column;
+		sums.placed = Math.min(sums.placed, from);
+	}
+	
+	/**
+	 * Returns the index entry for the title with its index and column up to date, first recording
+	 * the positions of every Feature in its row past the last change if it is among them; null if
+	 * no Feature directly in this composite has the title.
+	 * 
+	 * @param identifier
+	 * @return
+	 */
+	
+	private Location locate(String identifier) {
+		Location at = index.get(identifier);
+		if(at == null) {
+			return null;
+		}
+		RowSums sums = rowSums.get(at.row);
+		if(at.index >= sums.placed) {
+			for(int i = sums.placed; i < at.row.size(); i++) {
+				Feature f = at.row.get(i);
+				if(isIndexed(f.getTitle())) {
+					Location other = index.get(f.getTitle());
+					other.index = i;
+					other.column = sums.starts[i];
+				}
+			}
+			sums.placed = at.row.size();
+		}
+		return at;
+	}
+	
+	/**
+	 * Drops the drawing geometry after the layout changed, to be laid out again on the next draw.
+	 * 
+	 */
+	
+	private void dropGeometry() {
+		geometry = null;
+	}
+	
+	/**
+	 * Sets the row number of every row from the given one down, after a row is inserted or removed.
+	 * 
+	 * @param from
+	 */
+	
+	private void renumberRows(int from) {
+		dropGeometry();
+		for(int i = from; i < layout.size(); i++) {
+			rowSums.get(layout.get(i)).number = i;
+		}
+	}
+	
+	/**
+	 * Takes a Feature that has been removed from the layout out of the index, and out of the
+	 * indices of the composites above this one; its elements are released on the next draw.
+	 * 
+	 * @param f
+	 */
+	
+	private void release(Feature f) {
+		synchronized(removed) {
+			removed.add(f);
+		}
+		Location at = index.get(f.getTitle());
+		if(at == null || at.feature != f) {
+			return;
+		}
+		index.remove(f.getTitle());
+		withdraw(parent, f.getTitle(), this);
+		if(f instanceof FeatureComposite) {
+			disown((FeatureComposite)f);
+		}
+	}
+	
+	private void releaseAll(ArrayList<Feature> list) {
 		for(Feature f : list) {
-			if(posit >= column) {
-				return index;
+			release(f);
+		}
+	}
+	
+	/**
+	 * Makes the FeatureComposite (just placed in this one's layout) a sub-layout of this one and
+	 * announces every title in and beneath it to this composite and those above.
+	 * 
+	 * @param fc
+	 */
+	
+	private void adopt(FeatureComposite fc) {
+		fc.parent = this;
+		subLayouts.add(fc);
+		for(String title : fc.index.keySet()) {
+			announce(this, title, fc);
+		}
+		for(Map.Entry<String, FeatureComposite> e : fc.nested.entrySet()) {
+			announce(this, e.getKey(), e.getValue());
+		}
+	}
+	
+	private void disown(FeatureComposite fc) {
+		subLayouts.remove(fc);
+		fc.parent = null;
+		for(String title : fc.index.keySet()) {
+			withdraw(this, title, fc);
+		}
+		for(Map.Entry<String, FeatureComposite> e : fc.nested.entrySet()) {
+			withdraw(this, e.getKey(), e.getValue());
+		}
+	}
+	
+	/**
+	 * Tells the given composite and each above it that the title is held by the owner (unless they
+	 * already know of another composite holding the same title, which is kept). Each composite's
+	 * titles are changed holding its monitor.
+	 * 
+	 * @param from
+	 * @param title
+	 * @param owner
+	 */
+	
+	private static void announce(FeatureComposite from, String title, FeatureComposite owner) {
+		for(FeatureComposite fc = from; fc != null; fc = fc.parent) {
+			synchronized(fc) {
+				if(!fc.nested.containsKey(title)) {
+					fc.nested.put(title, owner);
+				}
+			}
+		}
+	}
+	
+	/**
+	 * Tells the given composite and each above it that the owner no longer holds the title; any
+	 * that had it recorded for the owner look for another sub-layout that holds the same title.
+	 * 
+	 * @param from
+	 * @param title
+	 * @param owner
+	 */
+	
+	private static void withdraw(FeatureComposite from, String title, FeatureComposite owner) {
+		for(FeatureComposite fc = from; fc != null; fc = fc.parent) {
+			if(fc.nested.get(title) == owner) {
+				FeatureComposite other = null;
+				for(FeatureComposite sub : fc.subLayouts) {
+					other = sub.ownerOf(title);
+					if(other != null) {
+						break;
+					}
+				}
+				synchronized(fc) {
+					if(other == null) {
+						fc.nested.remove(title);
+					}
+					else {
+						fc.nested.put(title, other);
+					}
+				}
 			}
-			posit += f.getHorizontalProportion();
-			index += 1;
 		}
-		return -1;
+	}
+	
+	private int findFeatureIndex(int row, int column) {
+		int size = layout.get(row).size();
+		int index = rowSums.get(layout.get(row)).firstAtOrAfter(column, size);
+		return index == size ? -1 : index;
 	}
 	
 //---  Getter Methods   -----------------------------------------------------------------------
@@ -503,32 +946,34 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 		return null;
 	}
 	
+	/**
+	 * Returns the height in pixels of the whole layout, as drawn.
+	 * 
+	 * @return
+	 */
+	
+	public synchronized int getLayoutHeight() {
+		return layout.size() * ROW_HEIGHT;
+	}
+	
 	@Override
 	public String getDataContent(String identifier) {
 		if(getTitle().equals(identifier)) {
 			return getDataContent();
 		}
-		if(findFeature(identifier) != null) {
-			return findFeature(identifier).getDataContent();
-		}
-		for(ArrayList<Feature> row : layout) {
-			for(Feature f : row) {
-				if(f.getDataContent() == null) {
-					String out = f.getDataContent(identifier);
-					if(out != null) {
-						return out;
-					}
-				}
-			}
-		}
-		return null;
+		FeatureComposite owner = findPossessingComposite(identifier);
+		return owner == null ? null : owner.findFeature(identifier).getDataContent();
 	}
 
 	public boolean getInitiatedStatus() {
 		return initiated;
 	}
 	
-	public Feature findFeature(String identifier){
+	public synchronized Feature findFeature(String identifier){
+		if(isIndexed(identifier)) {
+			Location at = index.get(identifier);
+			return at == null ? null : at.feature;
+		}
 		for(ArrayList<Feature> arr : layout) {
 			for(Feature f : arr) {
 				if(f.getTitle().equals(identifier)) {
@@ -561,12 +1006,7 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 	 */
 	
 	private int effectiveRowWidth(int row) {
-		ArrayList<Feature> list = layout.get(row);
-		int out = 0;
-		for(Feature f : list) {
-			out += f.getHorizontalProportion();
-		}
-		return out;
+		return rowSums.get(layout.get(row)).starts[layout.get(row).size()];
 	}
 	
 	/**
@@ -578,11 +1018,122 @@ public class FeatureComposite extends Feature implements FeatureAdder, FeatureRe
 	 */
 	
 	private boolean checkDuplicate(String identifier) {
-		boolean out =identifier != null && findFeature(identifier) != null && !identifier.equals(FeatureSpacing.CAN_REMOVE) && !identifier.equals(FeatureSpacing.CAN_REMOVE);
+		boolean out = isIndexed(identifier) && index.containsKey(identifier);
 		if(out) {
 			System.err.println("Error: Attempt to add identical Feature: " + identifier);
 		}
 		return out;
 	}
+	
+	/**
+	 * Spacers and fixtures share their titles, so they aren't indexed (and can't be duplicates).
+	 * 
+	 * @param identifier
+	 * @return
+	 */
+	
+	private static boolean isIndexed(String identifier) {
+		return identifier != null && !identifier.equals(FeatureSpacing.CAN_REMOVE) && !identifier.equals(FeatureSpacing.NO_REMOVE);
+	}
+	
+//---  Mechanics   ----------------------------------------------------------------------------
+	
+	/**
+	 * Where an indexed Feature is in this composite's layout: its row (the row's list, whose number
+	 * is kept in rowSums), its index in that row, and the column it starts at.
+	 * 
+	 */
+	
+	private static class Location {
+		
+		private Feature feature;
+		
+		private ArrayList<Feature> row;
+		
+		private int index;
+		
+		private int column;
+		
+		private Location(Feature f) {
+			feature = f;
+			index = Integer.MAX_VALUE;
+		}
+	
+	}
+	
+	/**
+	 * The drawing geometry of a layout at one width, never changed once made: every Feature in the
+	 * order drawn, its rectangle (4 ints) at the same place in 'rects', the index in 'order' of the
+	 * first Feature of each row (with the count at the end), and the greatest vertical proportion.
+	 * 
+	 */
+	
+	private static class Geometry {
+		
+		private final Feature[] order;
+		
+		private final int[] rects;
+		
+		private final int[] firsts;
+		
+		private final int tallest;
+		
+		private final int width;
+		
+		private Geometry(Feature[] drawOrder, int[] rectangles, int[] rowFirsts, int maxVertProp, int layoutWidth) {
+			order = drawOrder;
+			rects = rectangles;
+			firsts = rowFirsts;
+			tallest = maxVertProp;
+			width = layoutWidth;
+		}
+	
+	}
+	
+	/**
+	 * A row's number and the column each of its Features starts at (starts[i] for the i'th, and
+	 * starts[size] is the row's width), so a column is turned into an index by binary search and
+	 * the row's width is read directly. Kept by reindexRow.
+	 * 
+	 */
+	
+	private static class RowSums {
+		
+		private int number;
+		
+		private int[] starts;
+		/** Features in the row before this index have their Locations' index and column up to date*/
+		private int placed;
+		
+		private RowSums(int row) {
+			number = row;
+			starts = new int[8];
+		}
+		
+		/**
+		 * Returns the lowest index below limit whose Feature starts at or past the column, or limit
+		 * if there isn't one.
+		 * 
+		 * @param column
+		 * @param limit
+		 * @return
+		 */
+		
+		private int firstAtOrAfter(int column, int limit) {
+			int low = 0;
+			int high = limit;
+			while(low < high) {
+				int mid = (low + high) >>> 1;
+				if(starts[mid] >= column) {
+					high = mid;
+				}
+				else {
+					low = mid + 1;
+				}
+			}
+			return low;
+		}
+	
+	}
 
 }
@@ -19,7 +19,10 @@ public class FeatureFileSelect extends Feature implements PropertyAccessor{
 	
 	private boolean isAnImage;
 	
-	private String lastSeen;
+	/** Version of the property (see SpecificPropertyAccessor.getVersion) last drawn, so the path is only re-read when it changes*/
+	private long drawnVersion;
+	
+	private String current;
 	
 	private int codeVal;
 	
@@ -27,21 +30,24 @@ public class FeatureFileSelect extends Feature implements PropertyAccessor{
 		super(inTitle, proportionHorizontal, proportionVertical);
 		isAnImage = isImageDisplay;
 		codeVal = codeValue;
-		lastSeen = "";
+		drawnVersion = -1;
 	}
 
 	@Override
 	protected void draw(HandlePanel hp, int x, int y, int width, int height) {
-		String path = getDataContent();
+		long version = spa.getVersion();
+		if(version != drawnVersion) {
+			drawnVersion = version;
+			current = spa.findConfigPropertyValue().orElse(null);
+			hp.removeElement(getTitle() + "_" + x + "_" + y);
+		}
+		String full = current == null ? "" : current;
+		String path = full;
 		File f = new File(path);
 		int useX = (int)(x - width * .1);
 		int useWid = (int)(width * .8);
-		if(!lastSeen.equals(path)) {
-			hp.removeElementPrefixed(getTitle() + "_" + x + "_" + y);
-			lastSeen = path;
-		}
 		if(isAnImage && (path.contains(".png") || path.contains(".jpg")) && f.exists()) {
-			hp.handleImage(this.getTitle() + "_" + x + "_" + y, "basic", 5, useX, y, useWid, height, true, path);
+			hp.handleImage(track(this.getTitle() + "_" + x + "_" + y), "basic", 5, useX, y, useWid, height, true, path);
 		}
 		else {
 			ElementLoader el = hp.accessElementLoader();
@@ -50,29 +56,24 @@ public class FeatureFileSelect extends Feature implements PropertyAccessor{
 				path = path.substring(2, path.length());
 				wid = hp.getTextWidth("..." + path, DEFAULT_FONT);
 			}
-			if(!path.equals(lastSeen)) {
+			if(!path.equals(full)) {
 				path = "..." + path;
 			}
-			el.addText(getTitle() + "_" + x + "_" + y, 5, "basic", useX, y, useWid, height, path, DEFAULT_FONT, f.exists() ? Color.black : Color.red, true, true, true);
+			el.addText(track(getTitle() + "_" + x + "_" + y), 5, "basic", useX, y, useWid, height, path, DEFAULT_FONT, f.exists() ? Color.black : Color.red, true, true, true);
 		}
 		int size = (int)(width * .1) < height ? (int)(width * .1) : height;
-		hp.handleImageButton(getTitle() + "_button_" + x + "_" + y, "basic", 5, x + (int)(width * .4), y, size, size, BUTTON_IMAGE, codeVal);
+		hp.handleImageButton(track(getTitle() + "_button_" + x + "_" + y, IMAGE_BUTTON_PARTS), "basic", 5, x + (int)(width * .4), y, size, size, BUTTON_IMAGE, codeVal);
 	}
 
 	@Override
 	public String getDataContent() {
-		try {
-			return spa.getConfigPropertyValue();
-		} catch (Exception e) {
-			System.err.println("Feature File Select: " + getTitle() + " failed to retrieve file path associated to it");
-			e.printStackTrace();
-			return null;
-		}
+		return spa.findConfigPropertyValue().orElse(null);
 	}
 
 	@Override
 	public void assignPropertyAccessor(SpecificPropertyAccessor sfa) {
 		spa = sfa;
+		drawnVersion = -1;
 	}
 
 }
@@ -28,7 +28,7 @@ public class FeatureImage extends Feature {
 
 	@Override
 	protected void draw(HandlePanel hp, int x, int y, int width, int height) {
-		hp.handleImage(this.getTitle() + "_" + x + "_" + y, "basic", 5, x, y, width, height, !stretchFill, imgPath);
+		hp.handleImage(track(this.getTitle() + "_" + x + "_" + y), "basic", 5, x, y, width, height, !stretchFill, imgPath);
 	}
 
 	@Override
@@ -19,54 +19,49 @@ public class FeaturePropertyText extends FeatureBasicText implements PropertyAcc
 	private SpecificPropertyAccessor property;
 	
 	private String lastGrabbed;
-	
-	private int counter;
+	/** Version of the property (see SpecificPropertyAccessor.getVersion) the display text was built from*/
+	private long shownVersion;
 	
 	private String basicDisplay;
 	
 	public FeaturePropertyText(String inTitle, int proportionHorizontal, int proportionVertical, String prefixText) {
 		super(inTitle, proportionHorizontal, proportionVertical, "");
 		lastGrabbed = "";
+		shownVersion = -1;
 		basicDisplay = prefixText == null ? "" : prefixText;
 	}
 	
 	private void updateShowText(){
-		if(property != null)
-			try {
-				setShowText(basicDisplay + property.getConfigPropertyValue());
-			} catch (Exception e) {
-				setShowText(basicDisplay + "null");
-			}
+		setShowText(basicDisplay + (lastGrabbed == null ? "null" : lastGrabbed));
 	}
 	
 	/**
 	 * 
-	 * TODO: This is prolly gonna be an IO annoyance to do every draw operation, should 
+	 * Only re-reads the property and re-builds the display text when the property's version has
+	 * moved on, which is a single comparison on the frames where it hasn't.
 	 * 
 	 */
 	
 	@Override
 	public void draw(HandlePanel hp, int x, int y, int width, int height) {
-		if(counter % 20 == 0) {
-			try {
-				updateShowText();
-			} catch (Exception e) {
-				// TODO Auto-generated catch block
-				e.printStackTrace();
-			}
+		long version = property.getVersion();
+		if(version != shownVersion) {
+			shownVersion = version;
+			lastGrabbed = property.findConfigPropertyValue().orElse(null);
+			updateShowText();
 		}
-		counter++;
 		super.draw(hp, x, y, width, height);
 	}
 	
 	@Override
 	public String getDataContent() {
-		return lastGrabbed;
+		return property == null ? lastGrabbed : property.findConfigPropertyValue().orElse(null);
 	}
 
 	@Override
 	public void assignPropertyAccessor(SpecificPropertyAccessor sfa) {
-		property = sfa;		
+		property = sfa;
+		shownVersion = -1;
 	}
 
 }
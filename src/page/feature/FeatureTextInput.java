@@ -39,8 +39,8 @@ public class FeatureTextInput extends Feature{
 		} catch (Exception e) {
 			e.printStackTrace();
 		}
-		hp.handleTextEntry(getElementName(), "basic", 6, x, y, width, height, codeValue, null, storedValue);
-		hp.handleRectangle(getElementName() + "_rect", "basic", 3, x, y, width, height * 2 / 3, new Color(188, 188, 188), new Color(22, 22, 22));
+		hp.handleTextEntry(track(getElementName()), "basic", 6, x, y, width, height, codeValue, null, storedValue);
+		hp.handleRectangle(track(getElementName() + "_rect"), "basic", 3, x, y, width, height * 2 / 3, new Color(188, 188, 188), new Color(22, 22, 22));
 	}
 
 	private String getElementName() {
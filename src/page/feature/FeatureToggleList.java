@@ -33,10 +33,10 @@ public class FeatureToggleList extends FeaturePropertyText implements PropertyAc
 	public void draw(HandlePanel hp, int x, int y, int width, int height) {
 		super.draw(hp, x, y, width, height);
 		// Draw the decrement and increment buttons with the code values, have FeatureLoader add the behaviors for each
-		int wid = hp.getTextWidth(getDataContent(), DEFAULT_FONT);
+		int wid = hp.getTextWidth(getDataContent() == null ? "null" : getDataContent(), DEFAULT_FONT);
 		int hei = hp.getTextHeight(DEFAULT_FONT);
-		hp.handleImageButton(getTitle() + "_button_decr_" + x + "_" + y, "basic", 5, x - wid / 2 - hei * 2, y, hei, hei, IMAGE_DECREMENT, codeDecrement);
-		hp.handleImageButton(getTitle() + "_button_incr_" + x + "_" + y, "basic", 5, x + wid / 2 + hei * 2, y, hei, hei, IMAGE_INCREMENT, codeIncrement);
+		hp.handleImageButton(track(getTitle() + "_button_decr_" + x + "_" + y, IMAGE_BUTTON_PARTS), "basic", 5, x - wid / 2 - hei * 2, y, hei, hei, IMAGE_DECREMENT, codeDecrement);
+		hp.handleImageButton(track(getTitle() + "_button_incr_" + x + "_" + y, IMAGE_BUTTON_PARTS), "basic", 5, x + wid / 2 + hei * 2, y, hei, hei, IMAGE_INCREMENT, codeIncrement);
 	}
 	
 
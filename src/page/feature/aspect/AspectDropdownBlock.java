@@ -36,6 +36,11 @@ public class AspectDropdownBlock extends FeatureAspect {
 		
 	}
 
+	@Override
+	public void aspectRelease(HandlePanel p, int x, int y, int width, int height) {
+		return;
+	}
+
 	@Override
 	public void aspectPrint() {
 		// TODO Auto-generated method stub
@@ -21,22 +21,31 @@ public class AspectLine extends FeatureAspect{
 	public void aspectDraw(HandlePanel p, int x, int y, int width, int height) {
 		switch(choice) {
 			case LINE_RIGHT:
-				p.handleLine("line:" + choice + "_" + x + "_" + y, "basic", 6, x + width / 2, y - height / 2, x + width / 2, y + height / 2, 2, Color.black);
+				p.handleLine(lineName(x, y), "basic", 6, x + width / 2, y - height / 2, x + width / 2, y + height / 2, 2, Color.black);
 				break;
 			case LINE_TOP:
-				p.handleLine("line:" + choice + "_" + x + "_" + y, "basic", 6, x - width / 2, y - height / 2, x + width / 2, y - height / 2, 2, Color.black);
+				p.handleLine(lineName(x, y), "basic", 6, x - width / 2, y - height / 2, x + width / 2, y - height / 2, 2, Color.black);
 				break;
 			case LINE_LEFT:
-				p.handleLine("line:" + choice + "_" + x + "_" + y, "basic", 6, x - width / 2, y - height / 2, x - width / 2, y + height / 2, 2, Color.black);
+				p.handleLine(lineName(x, y), "basic", 6, x - width / 2, y - height / 2, x - width / 2, y + height / 2, 2, Color.black);
 				break;
 			case LINE_BOTTOM:
-				p.handleLine("line:" + choice + "_" + x + "_" + y, "basic", 6, x - width / 2, y + height / 2, x + width / 2, y + height / 2, 2, Color.black);
+				p.handleLine(lineName(x, y), "basic", 6, x - width / 2, y + height / 2, x + width / 2, y + height / 2, 2, Color.black);
 				break;
 			default:
 				break;
 		}
 	}
 
+	@Override
+	public void aspectRelease(HandlePanel p, int x, int y, int width, int height) {
+		p.removeElement(lineName(x, y));
+	}
+	
+	private String lineName(int x, int y) {
+		return "line:" + choice + "_" + x + "_" + y;
+	}
+
 	public FeatureAspect duplicate() {
 		return new AspectLine(choice);
 	}
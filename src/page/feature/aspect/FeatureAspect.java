@@ -19,6 +19,24 @@ public abstract class FeatureAspect{
 		}
 	}
 	
+	/**
+	 * Removes the elements this Aspect (and those wrapped in it) drew for a Feature at the given
+	 * place, when the Feature's elements are released.
+	 * 
+	 * @param p
+	 * @param x
+	 * @param y
+	 * @param width
+	 * @param height
+	 */
+	
+	public void release(HandlePanel p, int x, int y, int width, int height) {
+		aspectRelease(p, x, y, width, height);
+		if(wrap != null) {
+			wrap.release(p, x, y, width, height);
+		}
+	}
+	
 	public void add(FeatureAspect feat) {
 		if(wrap == null) {
 			wrap = feat;
@@ -72,6 +90,8 @@ public abstract class FeatureAspect{
 	
 	public abstract void aspectDraw(HandlePanel p, int x, int y, int width, int height);
 	
+	public abstract void aspectRelease(HandlePanel p, int x, int y, int width, int height);
+	
 	public void print() {
 		aspectPrint();
 		if(wrap != null)
@@ -0,0 +1,109 @@
+import java.io.File;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.HashMap;
+
+import file.ConfigFileWriter;
+import file.ConfigIndex;
+import file.ConfigTokenizer;
+import filemeta.config.ConfigFileParser;
+
+/**
+ * 
+ * Timing comparison between the SVI ConfigFileParser path that FileAccess used to go through
+ * and the ConfigTokenizer/ConfigFileWriter that replaced it, on config files of 10, 1,000 and
+ * 100,000 entries.
+ * 
+ * For each size it times:
+ *  - reading: ConfigFileParser.getContents for the last entry in the file (its worst case) against
+ *    ConfigTokenizer reading every entry in the file, and against ConfigIndex mapping the file and
+ *    decoding only that entry
+ *  - writing: ConfigFileParser.setContents for one entry against ConfigFileWriter.rewrite for one entry
+ *    (setContents is skipped at 100,000 entries, its repeated String += takes minutes there)
+ * 
+ * Each is timed with BenchHarness.time.
+ * 
+ */
+
+public class BenchConfigTokenizer {
+	
+	private final static int[] SIZES = new int[] {10, 1000, 100000};
+	
+	private final static int LEGACY_WRITE_LIMIT = 10000;
+	
+	public static void main(String[] args) throws Exception {
+		File dir = Files.createTempDirectory("config_bench").toFile();
+		for(int size : SIZES) {
+			File f = new File(dir, "config_" + size + ".txt");
+			Files.write(f.toPath(), generate(size).getBytes(StandardCharsets.UTF_8));
+			final String last = "property_" + (size - 1);
+			int rounds = Math.max(3, 200000 / size);
+			
+			double legacyRead = BenchHarness.time(rounds, new Runnable() {
+				public void run() {
+					try {
+						ConfigFileParser.getContents(f, last);
+					}
+					catch(Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+			double tokenRead = BenchHarness.time(rounds, new Runnable() {
+				public void run() {
+					try {
+						ConfigTokenizer.parse(ByteBuffer.wrap(Files.readAllBytes(f.toPath()))).get(last);
+					}
+					catch(Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+			double mappedRead = BenchHarness.time(rounds, new Runnable() {
+				public void run() {
+					try {
+						ConfigIndex.map(f).get(last);
+					}
+					catch(Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+			
+			int writeRounds = Math.max(3, rounds / 10);
+			final HashMap<String, String> update = new HashMap<String, String>();
+			update.put(last, "updated");
+			double legacyWrite = size > LEGACY_WRITE_LIMIT ? -1 : BenchHarness.time(writeRounds, new Runnable() {
+				public void run() {
+					try {
+						ConfigFileParser.setContents(f, last, "updated");
+					}
+					catch(Exception e) {
+						throw new RuntimeException(e);
+					}
+				}
+			});
+			double tokenWrite = BenchHarness.time(writeRounds, new Runnable() {
+				public void run() {
+					ConfigFileWriter.rewrite(f, update);
+				}
+			});
+			
+			System.out.println(String.format("%7d entries | read  legacy %12.1f us | tokenizer %12.1f us | mapped %12.1f us", size, legacyRead, tokenRead, mappedRead));
+			System.out.println(String.format("%7d entries | write legacy %12s us | writer    %12.1f us", size, legacyWrite < 0 ? "skipped" : String.format("%.1f", legacyWrite), tokenWrite));
+			f.delete();
+		}
+		dir.delete();
+	}
+	
+	private static String generate(int size) {
+		StringBuilder sb = new StringBuilder("#####Benchmark config file\n");
+		for(int i = 0; i < size; i++) {
+			sb.append("#####\n");
+			sb.append("property_").append(i).append(" = value number ").append(i).append(" for the benchmark</;>\n");
+		}
+		return sb.toString();
+	}
+	
+}
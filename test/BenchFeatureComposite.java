@@ -0,0 +1,122 @@
+import java.util.ArrayList;
+
+import page.feature.Feature;
+import page.feature.FeatureComposite;
+import page.feature.FeatureSpacing;
+
+/**
+ * 
+ * Timing of FeatureComposite building one wide row out of 1-unit Features, as pages generated
+ * programmatically do, at 100, 1,000 and 10,000 segments.
+ * 
+ * For each width it times:
+ *  - build: populateRows with a single spacer of that width, then addFeature for every column
+ *    (in a scattered order, so most go into the middle of the row through insertFeature)
+ *  - the same placement done the way FeatureComposite used to, walking the row and summing the
+ *    horizontal proportions for the row's width and for the index of each column (legacyPlace below);
+ *    it only finds the index, so it is a lower bound on what the old addFeature cost
+ *  - lookup: findFeatureColumn and findFeatureRow for every Feature in the built row
+ * 
+ * Each is timed with BenchHarness.time.
+ * 
+ */
+
+public class BenchFeatureComposite {
+	
+	private final static int[] WIDTHS = new int[] {100, 1000, 10000};
+	
+	public static void main(String[] args) {
+		for(final int width : WIDTHS) {
+			final int[] order = scatter(width);
+			int rounds = Math.max(3, 20000 / width);
+			final FeatureComposite[] built = new FeatureComposite[1];
+			
+			double build = BenchHarness.time(rounds, new Runnable() {
+				public void run() {
+					FeatureComposite fc = new FeatureComposite("bench", 1, 1);
+					fc.populateRows(new int[] {width});
+					for(int column : order) {
+						fc.addFeature(new FeatureSpacing("segment_" + column, 1, 1), 0, column);
+					}
+					built[0] = fc;
+				}
+			});
+			double legacy = BenchHarness.time(rounds, new Runnable() {
+				public void run() {
+					ArrayList<Feature> row = new ArrayList<Feature>();
+					for(int i = 0; i < width; i++) {
+						row.add(new FeatureSpacing(FeatureSpacing.CAN_REMOVE, 1, 1));
+					}
+					for(int column : order) {
+						row.set(legacyPlace(row, column), new FeatureSpacing("segment_" + column, 1, 1));
+					}
+				}
+			});
+			double lookup = BenchHarness.time(rounds, new Runnable() {
+				public void run() {
+					for(int column : order) {
+						String title = "segment_" + column;
+						if(built[0].findFeatureColumn(title) != column || built[0].findFeatureRow(title) != 0) {
+							throw new IllegalStateException("Misplaced " + title);
+						}
+					}
+				}
+			});
+			
+			System.out.println(String.format("%6d segments | build %10.1f us | legacy placement %12.1f us | lookup all %9.1f us", width, build, legacy, lookup));
+		}
+	}
+	
+	/**
+	 * Finds the index of the Feature at the column the way FeatureComposite did before it kept
+	 * column sums per row: one walk for the row's width, another for the index.
+	 * 
+	 * @param row
+	 * @param column
+	 * @return
+	 */
+	
+	private static int legacyPlace(ArrayList<Feature> row, int column) {
+		int width = 0;
+		for(Feature f : row) {
+			width += f.getHorizontalProportion();
+		}
+		if(width <= column) {
+			return -1;
+		}
+		int posit = 0;
+		int index = 0;
+		for(Feature f : row) {
+			if(posit >= column) {
+				return index;
+			}
+			posit += f.getHorizontalProportion();
+			index += 1;
+		}
+		return -1;
+	}
+	
+	/**
+	 * Every column below width, in a fixed scattered order (stepping by a number coprime to width).
+	 * 
+	 * @param width
+	 * @return
+	 */
+	
+	private static int[] scatter(int width) {
+		int step = 7919;
+		while(gcd(step, width) != 1) {
+			step += 2;
+		}
+		int[] out = new int[width];
+		for(int i = 0; i < width; i++) {
+			out[i] = (int)((long)i * step % width);
+		}
+		return out;
+	}
+	
+	private static int gcd(int a, int b) {
+		return b == 0 ? a : gcd(b, a % b);
+	}
+	
+}
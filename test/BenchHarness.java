@@ -0,0 +1,31 @@
+/**
+ * 
+ * Timing shared by the Bench programs: each task is run a number of rounds untimed to warm up,
+ * then the same number timed, so the numbers are best compared with each other rather than taken
+ * as absolute.
+ * 
+ */
+
+public class BenchHarness {
+	
+	/**
+	 * Runs the task 'rounds' times untimed to warm up, then 'rounds' times timed, and returns
+	 * the average time per run in microseconds.
+	 * 
+	 * @param rounds
+	 * @param task
+	 * @return
+	 */
+	
+	public static double time(int rounds, Runnable task) {
+		for(int i = 0; i < rounds; i++) {
+			task.run();
+		}
+		long start = System.nanoTime();
+		for(int i = 0; i < rounds; i++) {
+			task.run();
+		}
+		return (System.nanoTime() - start) / 1000.0 / rounds;
+	}
+	
+}
@@ -1,3 +1,5 @@
+import java.util.HashMap;
+
 import main.ConfigMenu;
 import page.FeatureLoader;
 import page.feature.aspect.FeatureAspectLoader;
@@ -28,12 +30,10 @@ public class TestConfigMenu {
 		ConfigMenu cm = new ConfigMenu("./config/");
 		cm.establishConfigProperties("./config/", "test_val", "other_val", "checkbox", "path");
 		cm.addConfigPage("test", "./config/");
-		if(!cm.checkInitializeProperty("./config/", "checkbox")) {
-			cm.initializeConfigPropertyValue("./config/", "checkbox", "false");
-		}
-		if(!cm.checkInitializeProperty("./config/", "path")) {
-			cm.initializeConfigPropertyValue("./config/", "path", "C:\\Users\\Reithger\\eclipse-workspace\\EasyJavaConfigMenu\\src\\assets\\ada.png");
-		}
+		HashMap<String, String> defaults = new HashMap<String, String>();
+		defaults.put("checkbox", "false");
+		defaults.put("path", "C:\\Users\\Reithger\\eclipse-workspace\\EasyJavaConfigMenu\\src\\assets\\ada.png");
+		cm.ensureDefaults("./config/", defaults);
 		
 		/*
 		 * 
@@ -71,6 +71,8 @@ public class TestConfigMenu {
 		try {
 			cm.resizeConfigWindow(350, 500);
 			
+			fl.preloadProperties("test_val", "other_val", "checkbox", "path");
+			
 			fl.allocateRowSpacing(new int[] {4, 6, 6, 2, 4});
 			
 			